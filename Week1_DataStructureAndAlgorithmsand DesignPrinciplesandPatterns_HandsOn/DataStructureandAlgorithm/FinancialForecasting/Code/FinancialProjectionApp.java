@@ -1,10 +1,32 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.stream.Collectors;
 
 
+// A whole-run Monte Carlo kernel; lets the optional SIMD implementation load without a compile-time link.
+interface MonteCarloKernel {
+    double[] simulate(double startValue, double avgReturn, double stdDev, int periods, int trials);
+}
+
 class ProjectionEngine {
 
+    private static final MonteCarloKernel VECTOR_KERNEL = loadVectorKernel();
+
 
     private Map<String, Double> cache;
+    private final Map<String, ForecastScenario> scenarios = new HashMap<>();
+    private final Map<String, MonteCarloScenario> monteCarloScenarios = new HashMap<>();
 
     public ProjectionEngine() {
         cache = new HashMap<>();
@@ -31,27 +53,87 @@ class ProjectionEngine {
             throw new IllegalArgumentException("At least two data points are required.");
         }
 
+        return forecastBasic(pastValues[pastValues.length - 1], computeCAGR(pastValues), futureYears);
+    }
+
+    public double computeCAGR(double[] pastValues) {
+        if (pastValues.length < 2) {
+            throw new IllegalArgumentException("At least two data points are required.");
+        }
+
         double start = pastValues[0];
         double end = pastValues[pastValues.length - 1];
         int duration = pastValues.length - 1;
-        double cagr = Math.pow(end / start, 1.0 / duration) - 1;
-
-        System.out.printf("Computed CAGR: %.4f (%.2f%%)%n", cagr, cagr * 100);
-        return forecastBasic(end, cagr, futureYears);
+        return Math.pow(end / start, 1.0 / duration) - 1;
     }
 
 
+    private static final double SQRT_FIVE = Math.sqrt(5);
+    private static final double GOLDEN_RATIO = (1 + SQRT_FIVE) / 2;
+    private static final int MAX_LONG_FIBONACCI_TERM = 92;
+
     public double fibonacciBasedGrowth(double value, int term) {
         return value * computeFibonacci(term);
     }
 
+    public BigDecimal fibonacciBasedGrowthExact(BigDecimal value, int term) {
+        return value.multiply(new BigDecimal(fibonacciExact(term)));
+    }
+
+    public double fibonacciBasedGrowthApprox(double value, int term) {
+        return value * approximateFibonacci(term);
+    }
+
     private double computeFibonacci(int n) {
-        String key = "fib" + n;
-        if (cache.containsKey(key)) return cache.get(key);
+        if (n < 0) {
+            throw new IllegalArgumentException("Fibonacci term must be non-negative.");
+        }
+        // Exact while F(n) fits in a long; beyond that a double can only hold an approximation anyway.
+        return n <= MAX_LONG_FIBONACCI_TERM ? fibonacciLong(n) : approximateFibonacci(n);
+    }
 
-        double result = (n <= 1) ? n : computeFibonacci(n - 1) + computeFibonacci(n - 2);
-        cache.put(key, result);
-        return result;
+    // Fast doubling: F(2k) = F(k) * (2F(k+1) - F(k)), F(2k+1) = F(k)^2 + F(k+1)^2
+    private long fibonacciLong(int n) {
+        long a = 0, b = 1;
+        for (int bit = Integer.highestOneBit(Math.max(n, 1)); bit != 0; bit >>>= 1) {
+            long c = a * (2 * b - a);
+            long d = a * a + b * b;
+            if ((n & bit) != 0) {
+                a = d;
+                b = c + d;
+            } else {
+                a = c;
+                b = d;
+            }
+        }
+        return a;
+    }
+
+    public BigInteger fibonacciExact(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Fibonacci term must be non-negative.");
+        }
+        BigInteger a = BigInteger.ZERO, b = BigInteger.ONE;
+        for (int bit = Integer.highestOneBit(Math.max(n, 1)); bit != 0; bit >>>= 1) {
+            BigInteger c = a.multiply(b.shiftLeft(1).subtract(a));
+            BigInteger d = a.multiply(a).add(b.multiply(b));
+            if ((n & bit) != 0) {
+                a = d;
+                b = c.add(d);
+            } else {
+                a = c;
+                b = d;
+            }
+        }
+        return a;
+    }
+
+    // Binet's formula; overflows to Infinity past F(1476), same as a double accumulator would.
+    private double approximateFibonacci(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Fibonacci term must be non-negative.");
+        }
+        return Math.rint(Math.pow(GOLDEN_RATIO, n) / SQRT_FIVE);
     }
 
 
@@ -72,6 +154,68 @@ class ProjectionEngine {
         return simulatePath(current * (1 + fluctuation), mean, volatility, periodsLeft - 1, rng);
     }
 
+    private static final int PATH_BLOCK = 256; // must stay even for the paired Box-Muller draws
+
+    // Advances PATH_BLOCK paths together per period over flat arrays, drawing each period's shocks in
+    // one batch instead of recursing one path and one period at a time. The gain is from that blocking:
+    // the Math.log/cos/sin calls in fillGaussians keep C2 from vectorizing the draws.
+    public double[] simulateMonteCarloBlocked(double startValue, double avgReturn, double stdDev, int periods, int trials) {
+        double[] outcomes = new double[trials];
+        double[] shocks = new double[PATH_BLOCK];
+        double[] uniforms = new double[PATH_BLOCK];
+        SplittableRandom rng = new SplittableRandom();
+        double growth = 1 + avgReturn;
+
+        for (int blockStart = 0; blockStart < trials; blockStart += PATH_BLOCK) {
+            int lanes = Math.min(PATH_BLOCK, trials - blockStart);
+            Arrays.fill(outcomes, blockStart, blockStart + lanes, startValue);
+
+            for (int p = 0; p < periods; p++) {
+                fillGaussians(shocks, uniforms, lanes, rng);
+                for (int i = 0; i < lanes; i++) {
+                    outcomes[blockStart + i] *= growth + stdDev * shocks[i];
+                }
+            }
+        }
+
+        return outcomes;
+    }
+
+    // SIMD lanes when jdk.incubator.vector is available (see VectorMonteCarlo), otherwise the blocked kernel.
+    public double[] simulateMonteCarloSimd(double startValue, double avgReturn, double stdDev, int periods, int trials) {
+        return VECTOR_KERNEL != null
+                ? VECTOR_KERNEL.simulate(startValue, avgReturn, stdDev, periods, trials)
+                : simulateMonteCarloBlocked(startValue, avgReturn, stdDev, periods, trials);
+    }
+
+    public static boolean hasVectorKernel() {
+        return VECTOR_KERNEL != null;
+    }
+
+    // Probes by reflection so this file compiles and runs without the incubator module.
+    private static MonteCarloKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (MonteCarloKernel) Class.forName("VectorMonteCarlo").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Box-Muller over a whole block: one pass draws the uniforms, the next turns pairs into normals.
+    private void fillGaussians(double[] shocks, double[] uniforms, int count, SplittableRandom rng) {
+        int even = (count + 1) & ~1;
+        for (int i = 0; i < even; i++) {
+            uniforms[i] = rng.nextDouble();
+        }
+        for (int i = 0; i < even; i += 2) {
+            double radius = Math.sqrt(-2 * Math.log(1 - uniforms[i]));
+            double angle = 2 * Math.PI * uniforms[i + 1];
+            shocks[i] = radius * Math.cos(angle);
+            shocks[i + 1] = radius * Math.sin(angle);
+        }
+    }
+
     public double forecastTailRecursive(double principal, double rate, int years) {
         return tailRecursiveHelper(principal, rate, years, principal);
     }
@@ -88,16 +232,323 @@ class ProjectionEngine {
     public void displayCacheStats() {
         System.out.println("Cached entries: " + cache.size());
     }
+
+    public ForecastScenario openScenario(String name, double principal, double rate, int years) {
+        ForecastScenario scenario = new ForecastScenario(principal, rate, years);
+        scenarios.put(name, scenario);
+        return scenario;
+    }
+
+    public ForecastScenario getScenario(String name) {
+        return scenarios.get(name);
+    }
+
+    public MonteCarloScenario openMonteCarloScenario(String name, double startValue, double avgReturn,
+                                                     double stdDev, int periods, int trials) {
+        MonteCarloScenario scenario = new MonteCarloScenario(startValue, avgReturn, stdDev, periods, trials);
+        monteCarloScenarios.put(name, scenario);
+        return scenario;
+    }
+
+    public MonteCarloScenario getMonteCarloScenario(String name) {
+        return monteCarloScenarios.get(name);
+    }
+
+    public void closeScenario(String name) {
+        scenarios.remove(name);
+        monteCarloScenarios.remove(name);
+    }
+}
+
+// Keeps every year's balance so a rate tweak or a longer horizon only recomputes the years after the change.
+class ForecastScenario {
+    private double[] rates;
+    private double[] balances;
+    private int years;
+    private int dirtyFrom;
+
+    public ForecastScenario(double principal, double rate, int years) {
+        if (years < 0) {
+            throw new IllegalArgumentException("Years must be non-negative.");
+        }
+        this.rates = new double[Math.max(years, 1)];
+        this.balances = new double[rates.length + 1];
+        this.years = years;
+        Arrays.fill(rates, rate);
+        balances[0] = principal;
+        dirtyFrom = 1;
+    }
+
+    public void setPrincipal(double principal) {
+        balances[0] = principal;
+        dirtyFrom = 1;
+    }
+
+    // Years are 1-based: year 1 grows the principal into balanceAt(1).
+    public void setRate(int year, double rate) {
+        checkYear(year);
+        rates[year - 1] = rate;
+        dirtyFrom = Math.min(dirtyFrom, year);
+    }
+
+    public void setRateFrom(int year, double rate) {
+        checkYear(year);
+        Arrays.fill(rates, year - 1, years, rate);
+        dirtyFrom = Math.min(dirtyFrom, year);
+    }
+
+    public void extendTo(int newYears) {
+        if (newYears <= years) return;
+        if (newYears > rates.length) {
+            int capacity = Math.max(newYears, rates.length * 2);
+            rates = Arrays.copyOf(rates, capacity);
+            balances = Arrays.copyOf(balances, capacity + 1);
+        }
+        double lastRate = years > 0 ? rates[years - 1] : rates[0];
+        Arrays.fill(rates, years, newYears, lastRate);
+        dirtyFrom = Math.min(dirtyFrom, years + 1);
+        years = newYears;
+    }
+
+    public double balanceAt(int year) {
+        if (year < 0 || year > years) {
+            throw new IllegalArgumentException("Year " + year + " is outside the horizon of " + years + ".");
+        }
+        recomputeSuffix();
+        return balances[year];
+    }
+
+    public double projectedValue() {
+        return balanceAt(years);
+    }
+
+    public int getYears() {
+        return years;
+    }
+
+    private void recomputeSuffix() {
+        for (int y = dirtyFrom; y <= years; y++) {
+            balances[y] = balances[y - 1] * (1 + rates[y - 1]);
+        }
+        dirtyFrom = years + 1;
+    }
+
+    private void checkYear(int year) {
+        if (year < 1 || year > years) {
+            throw new IllegalArgumentException("Year " + year + " is outside the horizon of " + years + ".");
+        }
+    }
+}
+
+// Keeps each period's random shocks plus path balances every CHECKPOINT_INTERVAL periods, so changing
+// a period's return assumptions or extending the horizon replays only from the nearest checkpoint.
+class MonteCarloScenario {
+    private static final int CHECKPOINT_INTERVAL = 8;
+
+    private final int trials;
+    private final SplittableRandom rng = new SplittableRandom();
+    private final List<double[]> shocks = new ArrayList<>();
+    private final List<double[]> checkpoints = new ArrayList<>();
+    private double[] means = new double[0];
+    private double[] volatilities = new double[0];
+    private double[] outcomes;
+    private int periods;
+    private int dirtyFrom;
+
+    public MonteCarloScenario(double startValue, double avgReturn, double stdDev, int periods, int trials) {
+        if (periods < 0 || trials < 1) {
+            throw new IllegalArgumentException("Periods must be non-negative and trials positive.");
+        }
+        this.trials = trials;
+        double[] start = new double[trials];
+        Arrays.fill(start, startValue);
+        checkpoints.add(start);
+        extendTo(periods, avgReturn, stdDev);
+    }
+
+    public void setReturn(int period, double avgReturn, double stdDev) {
+        if (period < 1 || period > periods) {
+            throw new IllegalArgumentException("Period " + period + " is outside the horizon of " + periods + ".");
+        }
+        means[period - 1] = avgReturn;
+        volatilities[period - 1] = stdDev;
+        dirtyFrom = Math.min(dirtyFrom, period - 1);
+    }
+
+    public void extendTo(int newPeriods, double avgReturn, double stdDev) {
+        if (newPeriods <= periods) return;
+        means = Arrays.copyOf(means, newPeriods);
+        volatilities = Arrays.copyOf(volatilities, newPeriods);
+        Arrays.fill(means, periods, newPeriods, avgReturn);
+        Arrays.fill(volatilities, periods, newPeriods, stdDev);
+        for (int p = periods; p < newPeriods; p++) {
+            double[] periodShocks = new double[trials];
+            for (int i = 0; i < trials; i++) {
+                periodShocks[i] = rng.nextGaussian();
+            }
+            shocks.add(periodShocks);
+        }
+        dirtyFrom = Math.min(dirtyFrom, periods);
+        periods = newPeriods;
+    }
+
+    public double[] outcomes() {
+        if (outcomes == null || dirtyFrom < periods) {
+            replayFrom(dirtyFrom);
+            dirtyFrom = periods;
+        }
+        return outcomes.clone();
+    }
+
+    public int getPeriods() {
+        return periods;
+    }
+
+    private void replayFrom(int period) {
+        int checkpoint = Math.min(period / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        double[] current = checkpoints.get(checkpoint).clone();
+
+        for (int p = checkpoint * CHECKPOINT_INTERVAL; p < periods; p++) {
+            if (p % CHECKPOINT_INTERVAL == 0 && p / CHECKPOINT_INTERVAL > checkpoint) {
+                storeCheckpoint(p / CHECKPOINT_INTERVAL, current);
+            }
+            double growth = 1 + means[p];
+            double volatility = volatilities[p];
+            double[] periodShocks = shocks.get(p);
+            for (int i = 0; i < trials; i++) {
+                current[i] *= growth + volatility * periodShocks[i];
+            }
+        }
+        if (periods % CHECKPOINT_INTERVAL == 0 && periods / CHECKPOINT_INTERVAL > checkpoint) {
+            storeCheckpoint(periods / CHECKPOINT_INTERVAL, current);
+        }
+        outcomes = current;
+    }
+
+    private void storeCheckpoint(int index, double[] balances) {
+        if (index < checkpoints.size()) {
+            System.arraycopy(balances, 0, checkpoints.get(index), 0, trials);
+        } else {
+            checkpoints.add(balances.clone());
+        }
+    }
+}
+
+class InstrumentProjection {
+    final String instrument;
+    final long observations;
+    final double rollingCagr;
+    final double projectedValue;
+
+    public InstrumentProjection(String instrument, long observations, double rollingCagr, double projectedValue) {
+        this.instrument = instrument;
+        this.observations = observations;
+        this.rollingCagr = rollingCagr;
+        this.projectedValue = projectedValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d points, rolling CAGR %.4f (%.2f%%), projected $%.2f",
+                instrument, observations, rollingCagr, rollingCagr * 100, projectedValue);
+    }
+}
+
+class SeriesProjector {
+
+    // Largest region a single MappedByteBuffer can cover, rounded down to whole doubles.
+    private static final long MAX_MAPPED_BYTES = (Integer.MAX_VALUE / Double.BYTES) * (long) Double.BYTES;
+
+    private final ProjectionEngine engine;
+
+    public SeriesProjector(ProjectionEngine engine) {
+        this.engine = engine;
+    }
+
+    // Single pass over a file of big-endian doubles; only the last window + 1 values are kept.
+    public InstrumentProjection projectRollingCAGR(String instrument, Path seriesFile, int window,
+                                                   int periodsPerYear, int futureYears) {
+        if (window < 1 || periodsPerYear < 1) {
+            throw new IllegalArgumentException("Window and periods per year must be positive.");
+        }
+
+        double[] ring = new double[window + 1];
+        long count = 0;
+
+        try (FileChannel channel = FileChannel.open(seriesFile, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % Double.BYTES;
+            for (long offset = 0; offset < size; offset += MAX_MAPPED_BYTES) {
+                long length = Math.min(MAX_MAPPED_BYTES, size - offset);
+                DoubleBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).asDoubleBuffer();
+                while (values.hasRemaining()) {
+                    ring[(int) (count++ % ring.length)] = values.get();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read series for " + instrument, e);
+        }
+
+        if (count <= window) {
+            throw new IllegalArgumentException(instrument + " has fewer than " + (window + 1) + " data points.");
+        }
+
+        double end = ring[(int) ((count - 1) % ring.length)];
+        double start = ring[(int) (count % ring.length)];
+        double cagr = Math.pow(end / start, (double) periodsPerYear / window) - 1;
+
+        return new InstrumentProjection(instrument, count, cagr, engine.forecastBasic(end, cagr, futureYears));
+    }
+
+    public List<InstrumentProjection> projectAll(Map<String, Path> seriesFiles, int window,
+                                                 int periodsPerYear, int futureYears) {
+        return seriesFiles.entrySet().parallelStream()
+                .map(e -> projectRollingCAGR(e.getKey(), e.getValue(), window, periodsPerYear, futureYears))
+                .sorted(Comparator.comparing(p -> p.instrument))
+                .collect(Collectors.toList());
+    }
+
+    public static void writeSeries(Path seriesFile, double[] values) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(seriesFile)))) {
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write series " + seriesFile, e);
+        }
+    }
 }
 
 class StatsUtility {
 
+    // Labels a demo step only; timings come from ForecastBenchmark, not from a single cold run.
     public static void evaluate(String label, Runnable task) {
         System.out.println("\n>>> Running: " + label);
-        long start = System.nanoTime();
         task.run();
-        long end = System.nanoTime();
-        System.out.printf("Duration: %,d ns (%.2f ms)%n", (end - start), (end - start) / 1e6);
+    }
+
+    public static double standardDeviation(double[] values) {
+        double mean = Arrays.stream(values).average().orElse(0.0);
+        double sumSquares = 0;
+        for (double value : values) {
+            sumSquares += (value - mean) * (value - mean);
+        }
+        return values.length > 1 ? Math.sqrt(sumSquares / (values.length - 1)) : 0.0;
+    }
+
+    // Two-sample Kolmogorov-Smirnov statistic: the largest gap between the two empirical CDFs.
+    public static double ksStatistic(double[] first, double[] second) {
+        double[] a = first.clone(), b = second.clone();
+        Arrays.sort(a);
+        Arrays.sort(b);
+        int i = 0, j = 0;
+        double largest = 0;
+        while (i < a.length && j < b.length) {
+            double value = Math.min(a[i], b[j]);
+            while (i < a.length && a[i] <= value) i++;
+            while (j < b.length && b[j] <= value) j++;
+            largest = Math.max(largest, Math.abs((double) i / a.length - (double) j / b.length));
+        }
+        return largest;
     }
 
     public static void displayStats(double[] values, String label) {
@@ -114,9 +565,208 @@ class StatsUtility {
     }
 }
 
+class Blackhole {
+    private double accumulated;
+    private volatile double published;
+
+    public void consume(double value) {
+        accumulated += value;
+    }
+
+    public void consume(Object value) {
+        accumulated += System.identityHashCode(value);
+    }
+
+    public void publish() {
+        published = accumulated;
+    }
+}
+
+class ForecastBenchmark {
+
+    static final String FORK_FLAG = "--benchmark-fork";
+
+    private static final int[] PARAMS = {10, 100, 1000};
+    private static final int FORKS = 2;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+
+    // Each entry runs one ProjectionEngine method for input size n and feeds the result to the blackhole.
+    private static Map<String, BenchmarkTask> tasks() {
+        Map<String, BenchmarkTask> tasks = new LinkedHashMap<>();
+        double[] history = {10_000, 10_800, 11_664, 12_597, 13_605, 14_693};
+        BigDecimal amount = BigDecimal.valueOf(1_000);
+
+        tasks.put("forecastBasic", (e, n, bh) -> bh.consume(e.forecastBasic(10_000, 0.08, n)));
+        tasks.put("forecastWithCache (cold)", (e, n, bh) -> {
+            e.resetCache();
+            bh.consume(e.forecastWithCache(10_000, 0.08, n));
+        });
+        tasks.put("forecastWithCache (warm)", (e, n, bh) -> bh.consume(e.forecastWithCache(10_000, 0.08, n)));
+        tasks.put("forecastTailRecursive", (e, n, bh) -> bh.consume(e.forecastTailRecursive(10_000, 0.08, n)));
+        tasks.put("projectUsingCAGR", (e, n, bh) -> bh.consume(e.projectUsingCAGR(history, n)));
+        tasks.put("fibonacciBasedGrowth", (e, n, bh) -> bh.consume(e.fibonacciBasedGrowth(1_000, n)));
+        tasks.put("fibonacciBasedGrowthExact", (e, n, bh) -> bh.consume(e.fibonacciBasedGrowthExact(amount, n)));
+        tasks.put("fibonacciBasedGrowthApprox", (e, n, bh) -> bh.consume(e.fibonacciBasedGrowthApprox(1_000, n)));
+        tasks.put("simulateMonteCarlo (1000 trials)", (e, n, bh) ->
+                bh.consume(e.simulateMonteCarlo(10_000, 0.07, 0.15, n, 1000)));
+        tasks.put("simulateMonteCarloBlocked (1000 trials)", (e, n, bh) ->
+                bh.consume(e.simulateMonteCarloBlocked(10_000, 0.07, 0.15, n, 1000)));
+        tasks.put("simulateMonteCarloSimd (1000 trials)", (e, n, bh) ->
+                bh.consume(e.simulateMonteCarloSimd(10_000, 0.07, 0.15, n, 1000)));
+        return tasks;
+    }
+
+    interface BenchmarkTask {
+        void run(ProjectionEngine engine, int n, Blackhole blackhole);
+    }
+
+    // Parent side: every (method, n) pair is measured in fresh JVMs so JIT profiles don't leak between methods.
+    public static void runSuite() {
+        System.out.println("=== ProjectionEngine Benchmarks ===");
+        if (!checkMonteCarloDistributions()) {
+            throw new IllegalStateException("Monte Carlo engines disagree with simulateMonteCarlo in distribution");
+        }
+        System.out.printf("%d forks x (%d warmup + %d measured) iterations of %d ms%n",
+                FORKS, WARMUP_ITERATIONS, MEASURE_ITERATIONS, ITERATION_NANOS / 1_000_000);
+        System.out.printf("%-34s %6s %16s %14s%n", "Method", "n", "Throughput", "Allocation");
+
+        for (String method : tasks().keySet()) {
+            for (int n : PARAMS) {
+                double opsPerMs = 0, bytesPerOp = 0;
+                for (int fork = 0; fork < FORKS; fork++) {
+                    double[] result = runForkedJvm(method, n);
+                    opsPerMs += result[0] / FORKS;
+                    bytesPerOp += result[1] / FORKS;
+                }
+                System.out.printf("%-34s %6d %,12.3f ops/ms %,10.0f B/op%n", method, n, opsPerMs, bytesPerOp);
+            }
+        }
+    }
+
+    static final String CHECK_FLAG = "--check-monte-carlo";
+
+    // The blocked and SIMD engines use other generators and Gaussian methods, so they can only match the
+    // scalar engine in distribution: means within 5 standard errors, std devs within 3%, and a KS statistic
+    // under its 0.1% critical value. Runs on its own with --check-monte-carlo and before every suite.
+    static boolean checkMonteCarloDistributions() {
+        int trials = 100_000;
+        ProjectionEngine engine = new ProjectionEngine();
+        double[] scalar = engine.simulateMonteCarlo(10_000, 0.07, 0.15, 10, trials);
+        boolean blockedMatches = matchesScalar("blocked", engine.simulateMonteCarloBlocked(10_000, 0.07, 0.15, 10, trials), scalar);
+        boolean simdMatches = matchesScalar(ProjectionEngine.hasVectorKernel() ? "SIMD" : "SIMD (scalar fallback)",
+                engine.simulateMonteCarloSimd(10_000, 0.07, 0.15, 10, trials), scalar);
+        return blockedMatches && simdMatches;
+    }
+
+    private static boolean matchesScalar(String label, double[] candidate, double[] scalar) {
+        double scalarMean = Arrays.stream(scalar).average().orElse(0);
+        double candidateMean = Arrays.stream(candidate).average().orElse(0);
+        double scalarStd = StatsUtility.standardDeviation(scalar);
+        double candidateStd = StatsUtility.standardDeviation(candidate);
+        double standardError = Math.sqrt((scalarStd * scalarStd + candidateStd * candidateStd) / scalar.length);
+        double ks = StatsUtility.ksStatistic(scalar, candidate);
+        double ksCritical = 1.95 * Math.sqrt((double) (scalar.length + candidate.length) / ((double) scalar.length * candidate.length));
+
+        boolean matches = Math.abs(scalarMean - candidateMean) <= 5 * standardError
+                && Math.abs(scalarStd - candidateStd) <= 0.03 * scalarStd
+                && ks <= ksCritical;
+        System.out.printf("Monte Carlo %s vs scalar: mean %.2f vs %.2f, std %.2f vs %.2f, KS %.4f (limit %.4f): %s%n",
+                label, scalarMean, candidateMean, scalarStd, candidateStd, ks, ksCritical, matches ? "PASS" : "FAIL");
+        return matches;
+    }
+
+    private static double[] runForkedJvm(String method, int n) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-Xss16m"));
+        if (ProjectionEngine.hasVectorKernel()) command.addAll(List.of("--add-modules", "jdk.incubator.vector"));
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                FinancialProjectionApp.class.getName(), FORK_FLAG, method, String.valueOf(n)));
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        try {
+            Process process = builder.start();
+            String output = new String(process.getInputStream().readAllBytes()).trim();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Benchmark fork failed for " + method + " (n=" + n + ")");
+            }
+            String[] parts = output.substring(output.lastIndexOf('\n') + 1).split(" ");
+            return new double[]{Double.parseDouble(parts[0]), Double.parseDouble(parts[1])};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while benchmarking " + method, e);
+        }
+    }
+
+    // Child side: prints "<ops per ms> <bytes per op>" as its last line.
+    public static void runFork(String method, int n) {
+        BenchmarkTask task = tasks().get(method);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown benchmark: " + method);
+        }
+
+        ProjectionEngine engine = new ProjectionEngine();
+        Blackhole blackhole = new Blackhole();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            measureIteration(task, engine, n, blackhole);
+        }
+
+        long ops = 0, nanos = 0, bytes = 0;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            long[] iteration = measureIteration(task, engine, n, blackhole);
+            ops += iteration[0];
+            nanos += iteration[1];
+            bytes += iteration[2];
+        }
+        blackhole.publish();
+
+        System.out.println((ops / (nanos / 1e6)) + " " + ((double) bytes / ops));
+    }
+
+    private static long[] measureIteration(BenchmarkTask task, ProjectionEngine engine, int n, Blackhole blackhole) {
+        long ops = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            task.run(engine, n, blackhole);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new long[]{ops, elapsed, Math.max(allocated, 0)};
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean) {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
+
 public class FinancialProjectionApp {
 
     public static void main(String[] args) {
+        if (args.length == 3 && args[0].equals(ForecastBenchmark.FORK_FLAG)) {
+            ForecastBenchmark.runFork(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+        if (args.length == 1 && args[0].equals("--benchmark")) {
+            ForecastBenchmark.runSuite();
+            return;
+        }
+        if (args.length == 1 && args[0].equals(ForecastBenchmark.CHECK_FLAG)) {
+            if (!ForecastBenchmark.checkMonteCarloDistributions()) System.exit(1);
+            return;
+        }
+
         ProjectionEngine engine = new ProjectionEngine();
 
         double principal = 10_000;
@@ -146,27 +796,99 @@ public class FinancialProjectionApp {
         System.out.println("\nHistorical Records: " + Arrays.toString(historicalData));
 
         StatsUtility.evaluate("CAGR-Based Projection", () -> {
+            double cagr = engine.computeCAGR(historicalData);
+            System.out.printf("Computed CAGR: %.4f (%.2f%%)%n", cagr, cagr * 100);
             double result = engine.projectUsingCAGR(historicalData, 5);
             System.out.printf("Predicted Value after 5 Years: $%.2f%n", result);
         });
 
+        StatsUtility.evaluate("Rolling CAGR over Streamed Series", () -> {
+            SeriesProjector projector = new SeriesProjector(engine);
+            Map<String, Path> seriesFiles = new HashMap<>();
+            try {
+                for (String instrument : new String[]{"BOND", "EQUITY", "REIT"}) {
+                    Path file = Files.createTempFile(instrument, ".bin");
+                    file.toFile().deleteOnExit();
+                    double[] ticks = new double[252 * 5];
+                    double growth = instrument.equals("EQUITY") ? 0.10 : instrument.equals("REIT") ? 0.06 : 0.03;
+                    for (int i = 0; i < ticks.length; i++) {
+                        ticks[i] = 100 * Math.pow(1 + growth, i / 252.0);
+                    }
+                    SeriesProjector.writeSeries(file, ticks);
+                    seriesFiles.put(instrument, file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            projector.projectAll(seriesFiles, 252, 252, 5).forEach(System.out::println);
+        });
+
         StatsUtility.evaluate("Fibonacci Growth Simulation", () -> {
             double result = engine.fibonacciBasedGrowth(1_000, 10);
             System.out.printf("Fibonacci Growth Estimate: $%.2f%n", result);
         });
 
+        StatsUtility.evaluate("Fibonacci Growth (Exact, term 1,000,000)", () -> {
+            BigInteger fib = engine.fibonacciExact(1_000_000);
+            System.out.printf("F(1,000,000) is %,d bits long%n", fib.bitLength());
+        });
+
+        StatsUtility.evaluate("Fibonacci Growth (Approximation, term 80)", () -> {
+            double result = engine.fibonacciBasedGrowthApprox(1_000, 80);
+            System.out.printf("Fibonacci Growth Estimate: $%.2f%n", result);
+        });
+
         StatsUtility.evaluate("Monte Carlo Simulation", () -> {
             int trials = 1000;
             double[] results = engine.simulateMonteCarlo(principal, 0.07, 0.15, duration, trials);
             StatsUtility.displayStats(results, "Monte Carlo Forecast");
         });
 
+        StatsUtility.evaluate("Monte Carlo Simulation (Blocked Paths)", () -> {
+            int trials = 100_000;
+            double[] scalar = engine.simulateMonteCarlo(principal, 0.07, 0.15, duration, trials);
+            double[] blocked = engine.simulateMonteCarloBlocked(principal, 0.07, 0.15, duration, trials);
+            StatsUtility.displayStats(blocked, "Blocked Monte Carlo Forecast");
+            System.out.printf("Mean (scalar vs blocked): $%.2f vs $%.2f%n",
+                    Arrays.stream(scalar).average().orElse(0), Arrays.stream(blocked).average().orElse(0));
+            System.out.printf("Std Dev (scalar vs blocked): $%.2f vs $%.2f%n",
+                    StatsUtility.standardDeviation(scalar), StatsUtility.standardDeviation(blocked));
+            System.out.printf("KS statistic (scalar vs blocked): %.4f%n", StatsUtility.ksStatistic(scalar, blocked));
+        });
+
+        StatsUtility.evaluate("Monte Carlo Simulation (SIMD Lanes)", () -> {
+            int trials = 100_000;
+            double[] simd = engine.simulateMonteCarloSimd(principal, 0.07, 0.15, duration, trials);
+            System.out.println(ProjectionEngine.hasVectorKernel()
+                    ? "Running on jdk.incubator.vector lanes."
+                    : "jdk.incubator.vector unavailable; using the scalar blocked kernel.");
+            StatsUtility.displayStats(simd, "SIMD Monte Carlo Forecast");
+        });
+
+        StatsUtility.evaluate("Incremental What-If Forecast", () -> {
+            ForecastScenario scenario = engine.openScenario("plan", principal, rate, duration);
+            System.out.printf("Baseline after %d years: $%.2f%n", scenario.getYears(), scenario.projectedValue());
+            scenario.setRate(8, 0.02);
+            System.out.printf("Year 8 at 2%%: $%.2f%n", scenario.projectedValue());
+            scenario.extendTo(15);
+            System.out.printf("Extended to %d years: $%.2f%n", scenario.getYears(), scenario.projectedValue());
+
+            MonteCarloScenario paths = engine.openMonteCarloScenario("plan", principal, 0.07, 0.15, duration, 10_000);
+            StatsUtility.displayStats(paths.outcomes(), "Monte Carlo What-If (Baseline)");
+            paths.setReturn(duration, -0.20, 0.30);
+            StatsUtility.displayStats(paths.outcomes(), "Monte Carlo What-If (Crash in Final Year)");
+            engine.closeScenario("plan");
+        });
+
         System.out.println("\n=== Time Complexity Overview ===");
         System.out.println("Basic Recursive: O(n), Stack space: O(n)");
         System.out.println("Memoized Recursive: O(n), Cache + Stack: O(n)");
         System.out.println("Tail Recursive: O(n), Space optimized if tail-call elimination available");
         System.out.println("Fibonacci without Memoization: O(2^n)");
         System.out.println("Fibonacci with Memoization: O(n)");
+        System.out.println("Fibonacci with Fast Doubling: O(log n) steps, no cache");
+        System.out.println("Fibonacci via Binet's Formula: O(1), approximate");
+        System.out.println("Incremental Scenario Update: O(years after the change)");
         System.out.println();
 
         System.out.println("=== Optimization Techniques ===");
@@ -177,5 +899,7 @@ public class FinancialProjectionApp {
         System.out.println("5. Mathematical shortcuts for compound formulas");
 
         engine.displayCacheStats();
+        System.out.println("\nRun with --benchmark for warmed-up, forked timings of every forecast method,");
+        System.out.println("or with " + ForecastBenchmark.CHECK_FLAG + " to check the Monte Carlo engines against each other.");
     }
 }
@@ -0,0 +1,77 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD Monte Carlo kernel on jdk.incubator.vector. It is only compiled and loaded with the module on:
+//   javac --add-modules jdk.incubator.vector -d out Code/*.java
+//   java --add-modules jdk.incubator.vector -cp out FinancialProjectionApp
+// Without the module, ProjectionEngine never touches this class and runs the scalar blocked kernel.
+//
+// Each period advances a block of paths lane by lane. The shocks come from a vectorized generator:
+// one SplitMix64 stream per path slot for the uniforms, and a Box-Muller transform on whole vectors.
+final class VectorMonteCarlo implements MonteCarloKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final int BLOCK = 256; // a multiple of twice the widest lane count
+    private static final int HALF = BLOCK / 2;
+
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+
+    @Override
+    public double[] simulate(double startValue, double avgReturn, double stdDev, int periods, int trials) {
+        double[] outcomes = new double[trials];
+        double[] paths = new double[BLOCK];
+        double[] shocks = new double[BLOCK];
+        long[] states = new long[BLOCK];
+        SplittableRandom seeds = new SplittableRandom();
+        for (int i = 0; i < BLOCK; i++) {
+            states[i] = seeds.nextLong();
+        }
+        DoubleVector growth = DoubleVector.broadcast(DOUBLES, 1 + avgReturn);
+        DoubleVector volatility = DoubleVector.broadcast(DOUBLES, stdDev);
+
+        for (int blockStart = 0; blockStart < trials; blockStart += BLOCK) {
+            Arrays.fill(paths, startValue);
+            for (int p = 0; p < periods; p++) {
+                fillGaussians(shocks, states);
+                for (int i = 0; i < BLOCK; i += DOUBLES.length()) {
+                    DoubleVector shock = DoubleVector.fromArray(DOUBLES, shocks, i);
+                    DoubleVector.fromArray(DOUBLES, paths, i).mul(shock.fma(volatility, growth)).intoArray(paths, i);
+                }
+            }
+            System.arraycopy(paths, 0, outcomes, blockStart, Math.min(BLOCK, trials - blockStart));
+        }
+
+        return outcomes;
+    }
+
+    // Box-Muller on vectors: uniforms from the first half of the block give the radii, the second half
+    // the angles, and each pair yields a cosine normal for the first half and a sine normal for the second.
+    private static void fillGaussians(double[] shocks, long[] states) {
+        for (int i = 0; i < HALF; i += DOUBLES.length()) {
+            DoubleVector u1 = nextUniforms(states, i);
+            DoubleVector u2 = nextUniforms(states, i + HALF);
+            DoubleVector radius = u1.neg().add(1.0).lanewise(VectorOperators.LOG).mul(-2.0).lanewise(VectorOperators.SQRT);
+            DoubleVector angle = u2.mul(2 * Math.PI);
+            radius.mul(angle.lanewise(VectorOperators.COS)).intoArray(shocks, i);
+            radius.mul(angle.lanewise(VectorOperators.SIN)).intoArray(shocks, i + HALF);
+        }
+    }
+
+    // One SplitMix64 step per lane, mapped to a double in [0, 1) from the top 53 bits.
+    private static DoubleVector nextUniforms(long[] states, int offset) {
+        LongVector state = LongVector.fromArray(LONGS, states, offset).add(GAMMA);
+        state.intoArray(states, offset);
+        LongVector z = state.lanewise(VectorOperators.XOR, state.lanewise(VectorOperators.LSHR, 30)).mul(MIX_1);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(MIX_2);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+        DoubleVector bits = (DoubleVector) z.lanewise(VectorOperators.LSHR, 11).convert(VectorOperators.L2D, 0);
+        return bits.mul(0x1.0p-53);
+    }
+}
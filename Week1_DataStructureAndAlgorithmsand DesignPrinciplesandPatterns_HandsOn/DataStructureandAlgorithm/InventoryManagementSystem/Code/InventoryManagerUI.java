@@ -1,9 +1,54 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
 
 class StockItem {
     String code;
@@ -17,18 +62,2215 @@ class StockItem {
         this.stock = stock;
         this.unitPrice = unitPrice;
     }
+
+    // Shared by the entry form and bulk import; throws NumberFormatException for bad stock or price.
+    public static StockItem parse(String code, String name, String stock, String unitPrice) {
+        return new StockItem(code, name.trim(), Integer.parseInt(stock.trim()), Double.parseDouble(unitPrice.trim()));
+    }
+}
+
+// Item-level view of the same mutations, for consumers that care about values rather than rows.
+interface InventoryChangeListener {
+    void itemPut(StockItem previous, StockItem current);
+    void itemRemoved(StockItem removed);
+}
+
+// Fired after stock moves outside the store lock (reservations); listeners re-read the counter.
+interface StockLevelListener {
+    void stockChanged(String code);
+}
+
+interface InventoryListener {
+    void rowInserted(int row);
+    void rowUpdated(int row);
+    void rowDeleted(int row);
+    void rowsReloaded();
+}
+
+// Headless, thread-safe inventory kept in parallel column arrays indexed by slot.
+// Rows are live slots in insertion order; a Fenwick tree over live flags maps row <-> slot
+// in O(log n), so a delete only tombstones its slot instead of shifting every later row.
+class InventoryStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<InventoryChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<StockLevelListener> stockListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> slotByCode = new HashMap<>();
+    private final ConcurrentHashMap<String, StockCounter> counterByCode = new ConcurrentHashMap<>();
+
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private StockCounter[] stock = new StockCounter[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] liveTree = new int[INITIAL_CAPACITY + 1];
+    private int usedSlots;
+    private int liveCount;
+    private boolean quiet;
+
+    public void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addChangeListener(InventoryChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(InventoryChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public void addStockLevelListener(StockLevelListener listener) {
+        stockListeners.add(listener);
+    }
+
+    public void removeStockLevelListener(StockLevelListener listener) {
+        stockListeners.remove(listener);
+    }
+
+    public void fireStockChanged(String code) {
+        for (StockLevelListener listener : stockListeners) listener.stockChanged(code);
+    }
+
+    // Listeners run while the write lock is held so events arrive in mutation order; keep them short.
+    public boolean add(StockItem item) {
+        lock.writeLock().lock();
+        try {
+            if (slotByCode.containsKey(item.code)) return false;
+            if (usedSlots == codes.length) makeRoom();
+
+            int slot = usedSlots++;
+            writeSlot(slot, item);
+            stock[slot] = new StockCounter(item.stock);
+            slotByCode.put(item.code, slot);
+            counterByCode.put(item.code, stock[slot]);
+            treeAdd(slot, 1);
+            liveCount++;
+
+            int row = liveCount - 1;
+            if (!changeListeners.isEmpty()) {
+                StockItem current = readSlot(slot);
+                for (InventoryChangeListener listener : changeListeners) listener.itemPut(null, current);
+            }
+            if (!quiet) for (InventoryListener listener : listeners) listener.rowInserted(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean update(StockItem item) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByCode.get(item.code);
+            if (slot == null) return false;
+
+            StockItem previous = changeListeners.isEmpty() ? null : readSlot(slot);
+            writeSlot(slot, item);
+            stock[slot].setAvailable(item.stock);
+            int row = rankOf(slot);
+            if (previous != null) {
+                StockItem current = readSlot(slot);
+                for (InventoryChangeListener listener : changeListeners) listener.itemPut(previous, current);
+            }
+            if (!quiet) for (InventoryListener listener : listeners) listener.rowUpdated(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String code) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByCode.remove(code);
+            if (slot == null) return false;
+
+            StockItem removed = changeListeners.isEmpty() ? null : readSlot(slot);
+            int row = rankOf(slot);
+            treeAdd(slot, -1);
+            counterByCode.remove(code);
+            codes[slot] = null;
+            names[slot] = null;
+            stock[slot] = null;
+            liveCount--;
+
+            if (removed != null) {
+                for (InventoryChangeListener listener : changeListeners) listener.itemRemoved(removed);
+            }
+            for (InventoryListener listener : listeners) listener.rowDeleted(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Inserts or replaces every item under one write-lock acquisition.
+    public void upsertAll(Collection<StockItem> items) {
+        lock.writeLock().lock();
+        try {
+            for (StockItem item : items) {
+                if (!update(item)) add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bulk-load variant of upsertAll: change listeners still see every item, but table listeners
+    // get nothing until the caller finishes the whole load and calls fireRowsReloaded once.
+    public void upsertAllQuietly(Collection<StockItem> items) {
+        lock.writeLock().lock();
+        try {
+            quiet = true;
+            upsertAll(items);
+        } finally {
+            quiet = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void fireRowsReloaded() {
+        lock.readLock().lock();
+        try {
+            for (InventoryListener listener : listeners) listener.rowsReloaded();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lock-free: reservations go straight to the item's counter without touching the store lock.
+    public StockCounter counter(String code) {
+        return counterByCode.get(code);
+    }
+
+    public StockItem get(String code) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByCode.get(code);
+            return slot == null ? null : readSlot(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public StockItem getAt(int row) {
+        lock.readLock().lock();
+        try {
+            if (row < 0 || row >= liveCount) return null;
+            return readSlot(slotAt(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int rowOf(String code) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByCode.get(code);
+            return slot == null ? -1 : rankOf(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String code) {
+        lock.readLock().lock();
+        try {
+            return slotByCode.containsKey(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copies every row and runs onCopied before any writer can get in, so the copy and whatever
+    // onCopied marks (e.g. a journal rotation) describe exactly the same point in time.
+    public InventoryPage checkpoint(Runnable onCopied) {
+        lock.readLock().lock();
+        try {
+            InventoryPage page = readPage(0, liveCount);
+            onCopied.run();
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sorted table rows of the given codes; unknown codes are skipped.
+    public int[] rowsOf(Collection<String> itemCodes) {
+        lock.readLock().lock();
+        try {
+            int[] rows = new int[itemCodes.size()];
+            int count = 0;
+            for (String code : itemCodes) {
+                Integer slot = slotByCode.get(code);
+                if (slot != null) rows[count++] = rankOf(slot);
+            }
+            rows = Arrays.copyOf(rows, count);
+            Arrays.sort(rows);
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Like readPage, but for an arbitrary (e.g. filtered) list of rows: rows[from .. from + maxRows).
+    public InventoryPage readRows(int[] rows, int from, int maxRows) {
+        lock.readLock().lock();
+        try {
+            int count = Math.max(0, Math.min(maxRows, rows.length - from));
+            InventoryPage page = new InventoryPage(from, count);
+            int filled = 0;
+            for (int i = 0; i < count; i++) {
+                if (rows[from + i] >= liveCount) break;
+                int slot = slotAt(rows[from + i]);
+                page.codes[i] = codes[slot];
+                page.names[i] = names[slot];
+                page.stock[i] = stock[slot];
+                page.prices[i] = prices[slot];
+                filled++;
+            }
+            return filled == count ? page : page.truncate(filled);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copies up to maxRows consecutive rows in one lock acquisition: one O(log n) seek, then a forward scan.
+    public InventoryPage readPage(int fromRow, int maxRows) {
+        lock.readLock().lock();
+        try {
+            int count = Math.max(0, Math.min(maxRows, liveCount - fromRow));
+            InventoryPage page = new InventoryPage(fromRow, count);
+            if (count == 0) return page;
+
+            int slot = slotAt(fromRow);
+            for (int i = 0; i < count; slot++) {
+                if (codes[slot] == null) continue;
+                page.codes[i] = codes[slot];
+                page.names[i] = names[slot];
+                page.stock[i] = stock[slot];
+                page.prices[i] = prices[slot];
+                i++;
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeSlot(int slot, StockItem item) {
+        codes[slot] = item.code;
+        names[slot] = item.name;
+        prices[slot] = item.unitPrice;
+    }
+
+    private StockItem readSlot(int slot) {
+        return new StockItem(codes[slot], names[slot], stock[slot].available(), prices[slot]);
+    }
+
+    // Full slot array: squeeze out tombstones if at least half are dead, otherwise double the capacity.
+    private void makeRoom() {
+        int capacity = codes.length;
+        if (usedSlots - liveCount >= capacity / 2) {
+            int target = 0;
+            for (int slot = 0; slot < usedSlots; slot++) {
+                if (codes[slot] == null) continue;
+                if (target != slot) {
+                    codes[target] = codes[slot];
+                    names[target] = names[slot];
+                    stock[target] = stock[slot];
+                    prices[target] = prices[slot];
+                    slotByCode.put(codes[target], target);
+                }
+                target++;
+            }
+            Arrays.fill(codes, target, usedSlots, null);
+            Arrays.fill(names, target, usedSlots, null);
+            Arrays.fill(stock, target, usedSlots, null);
+            usedSlots = target;
+        } else {
+            capacity *= 2;
+            codes = Arrays.copyOf(codes, capacity);
+            names = Arrays.copyOf(names, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        rebuildTree(capacity);
+    }
+
+    private void rebuildTree(int capacity) {
+        liveTree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            liveTree[i] += (i <= usedSlots && codes[i - 1] != null) ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent <= capacity) liveTree[parent] += liveTree[i];
+        }
+    }
+
+    private void treeAdd(int slot, int delta) {
+        for (int i = slot + 1; i < liveTree.length; i += i & -i) {
+            liveTree[i] += delta;
+        }
+    }
+
+    // Number of live slots before this one, i.e. its table row.
+    private int rankOf(int slot) {
+        int sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += liveTree[i];
+        }
+        return sum;
+    }
+
+    // Slot holding the (row + 1)-th live entry.
+    private int slotAt(int row) {
+        int position = 0;
+        int remaining = row + 1;
+        for (int step = Integer.highestOneBit(liveTree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < liveTree.length && liveTree[next] < remaining) {
+                position = next;
+                remaining -= liveTree[next];
+            }
+        }
+        return position;
+    }
+}
+
+// Available and reserved units packed into one long so every transition is a single CAS.
+class StockCounter {
+    private final AtomicLong state;
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+
+    public StockCounter(int available) {
+        state = new AtomicLong(pack(available, 0));
+    }
+
+    public int available() {
+        return availableOf(state.get());
+    }
+
+    public int reserved() {
+        return reservedOf(state.get());
+    }
+
+    public void setAvailable(int available) {
+        apply(0, (a, r) -> pack(available, r));
+    }
+
+    public boolean decrementIfAvailable(int quantity) {
+        return apply(quantity, (a, r) -> a >= quantity ? pack(a - quantity, r) : -1) != -1;
+    }
+
+    public boolean tryReserve(int quantity) {
+        return apply(quantity, (a, r) -> a >= quantity ? pack(a - quantity, r + quantity) : -1) != -1;
+    }
+
+    // Reserved units leave the building.
+    public void commit(int quantity) {
+        if (apply(quantity, (a, r) -> r >= quantity ? pack(a, r - quantity) : -1) == -1) {
+            throw new IllegalStateException("Cannot commit more units than are reserved.");
+        }
+    }
+
+    // Reserved units go back on the shelf.
+    public void release(int quantity) {
+        if (apply(quantity, (a, r) -> r >= quantity ? pack(a + quantity, r - quantity) : -1) == -1) {
+            throw new IllegalStateException("Cannot release more units than are reserved.");
+        }
+    }
+
+    public long operationCount() {
+        return operations.sum();
+    }
+
+    public long casRetryCount() {
+        return casRetries.sum();
+    }
+
+    interface Transition {
+        long next(int available, int reserved);
+    }
+
+    // Returns the new state, or -1 if the transition refused; -1 never encodes a valid non-negative pair.
+    private long apply(int quantity, Transition transition) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative.");
+        }
+        operations.increment();
+        while (true) {
+            long current = state.get();
+            long next = transition.next(availableOf(current), reservedOf(current));
+            if (next == -1) return -1;
+            if (state.compareAndSet(current, next)) return next;
+            casRetries.increment();
+        }
+    }
+
+    private static long pack(int available, int reserved) {
+        return ((long) available << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int availableOf(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int reservedOf(long state) {
+        return (int) state;
+    }
+}
+
+class Reservation {
+    final Map<String, Integer> lines;
+    // The counters reserved against, so settling never lands on a counter of a removed and re-added item.
+    final Map<String, StockCounter> counters;
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    Reservation(Map<String, Integer> lines, Map<String, StockCounter> counters) {
+        this.lines = lines;
+        this.counters = counters;
+    }
+
+    boolean settle() {
+        return settled.compareAndSet(false, true);
+    }
+}
+
+// Order-flow API over the per-item counters. Nothing here takes the store lock, so checkouts on
+// different SKUs never wait on each other; only threads hitting the same SKU retry CASes.
+class StockReservations {
+    private final InventoryStore store;
+
+    public StockReservations(InventoryStore store) {
+        this.store = store;
+    }
+
+    public boolean decrementIfAvailable(String code, int quantity) {
+        StockCounter counter = store.counter(code);
+        if (counter == null || !counter.decrementIfAvailable(quantity)) return false;
+        store.fireStockChanged(code);
+        return true;
+    }
+
+    public Reservation reserve(String code, int quantity) {
+        return reserveAll(Map.of(code, quantity));
+    }
+
+    // All-or-nothing: on the first line that can't be reserved, every earlier line is released again.
+    public Reservation reserveAll(Map<String, Integer> lines) {
+        Map<String, Integer> taken = new LinkedHashMap<>();
+        // The counters actually reserved against; the item may be removed before they are looked up again.
+        Map<String, StockCounter> held = new HashMap<>();
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            StockCounter counter = store.counter(line.getKey());
+            if (counter == null || !counter.tryReserve(line.getValue())) {
+                taken.forEach((code, quantity) -> {
+                    held.get(code).release(quantity);
+                    store.fireStockChanged(code);
+                });
+                return null;
+            }
+            taken.put(line.getKey(), line.getValue());
+            held.put(line.getKey(), counter);
+            store.fireStockChanged(line.getKey());
+        }
+        return new Reservation(taken, held);
+    }
+
+    public void commit(Reservation reservation) {
+        if (!reservation.settle()) {
+            throw new IllegalStateException("Reservation already committed or released.");
+        }
+        reservation.lines.forEach((code, quantity) -> reservation.counters.get(code).commit(quantity));
+    }
+
+    public void release(Reservation reservation) {
+        if (!reservation.settle()) {
+            throw new IllegalStateException("Reservation already committed or released.");
+        }
+        reservation.lines.forEach((code, quantity) -> {
+            reservation.counters.get(code).release(quantity);
+            store.fireStockChanged(code);
+        });
+    }
+
+    public String contentionReport(String code) {
+        StockCounter counter = store.counter(code);
+        if (counter == null) return code + ": not found";
+        long ops = counter.operationCount();
+        long retries = counter.casRetryCount();
+        return String.format("%s: %,d ops, %,d CAS retries (%.2f per op), available %d, reserved %d",
+                code, ops, retries, ops == 0 ? 0.0 : (double) retries / ops, counter.available(), counter.reserved());
+    }
+}
+
+class InventoryPage {
+    final int firstRow;
+    final String[] codes;
+    final String[] names;
+    final StockCounter[] stock;
+    final double[] prices;
+
+    public InventoryPage(int firstRow, int size) {
+        this.firstRow = firstRow;
+        this.codes = new String[size];
+        this.names = new String[size];
+        this.stock = new StockCounter[size];
+        this.prices = new double[size];
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    InventoryPage truncate(int size) {
+        InventoryPage page = new InventoryPage(firstRow, size);
+        System.arraycopy(codes, 0, page.codes, 0, size);
+        System.arraycopy(names, 0, page.names, 0, size);
+        System.arraycopy(stock, 0, page.stock, 0, size);
+        System.arraycopy(prices, 0, page.prices, 0, size);
+        return page;
+    }
+}
+
+// JTable only asks for visible cells; this model serves them from a small LRU of fixed-size
+// column pages and warms the pages on either side of the viewport in the background.
+class InventoryTableModel extends AbstractTableModel implements InventoryListener {
+    private static final String[] HEADERS = {"Item Code", "Item Name", "Stock", "Unit Price"};
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_CACHED_PAGES = 32;
+    private static final int FRAME_MILLIS = 16;
+
+    private final InventoryStore store;
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, InventoryPage> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, InventoryPage> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private long generation;
+    private long clearedAt;
+    private final Map<Integer, Long> pageClearedAt = new HashMap<>();
+
+    private InventoryIndex index;
+    private InventoryQuery query;
+    private int[] filterRows;
+    private volatile boolean filterStale;
+    private long filterVersion;
+
+    private final Object pendingLock = new Object();
+    private boolean flushScheduled;
+    private boolean structureDirty;
+    private int dirtyFrom = Integer.MAX_VALUE;
+    private int dirtyTo = -1;
+
+    public InventoryTableModel(InventoryStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    @Override
+    public int getRowCount() {
+        int[] rows = currentFilter();
+        return rows == null ? store.size() : rows.length;
+    }
+
+    // Shows only the rows matching query (null clears the filter). Rows are re-resolved through the
+    // index after every store change rather than rescanning the table.
+    public void setFilter(InventoryIndex index, InventoryQuery query) {
+        synchronized (pages) {
+            this.index = index;
+            this.query = query;
+            this.filterRows = null;
+        }
+        invalidate();
+        fireTableDataChanged();
+    }
+
+    // The search takes the store read lock, and store writers call in here holding the write lock, so it
+    // must run outside the pages monitor. Its rows are published only if no change arrived meanwhile.
+    private int[] currentFilter() {
+        InventoryIndex searchIndex;
+        InventoryQuery searchQuery;
+        long version;
+        synchronized (pages) {
+            if (query == null || !filterStale) return filterRows;
+            searchIndex = index;
+            searchQuery = query;
+            version = filterVersion;
+        }
+        int[] rows = searchIndex.search(searchQuery);
+        synchronized (pages) {
+            if (version == filterVersion) {
+                filterRows = rows;
+                filterStale = false;
+            }
+        }
+        return rows;
+    }
+
+    private InventoryPage loadPage(int pageIndex) {
+        int[] rows = currentFilter();
+        return rows == null
+                ? store.readPage(pageIndex * PAGE_SIZE, PAGE_SIZE)
+                : store.readRows(rows, pageIndex * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Override
+    public int getColumnCount() {
+        return HEADERS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return HEADERS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 2 ? Integer.class : column == 3 ? Double.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        InventoryPage page = pageFor(row / PAGE_SIZE);
+        int offset = row - page.firstRow;
+        if (offset >= page.size()) return null;
+        switch (column) {
+            case 0: return page.codes[offset];
+            case 1: return page.names[offset];
+            case 2: return page.stock[offset].available();
+            default: return page.prices[offset];
+        }
+    }
+
+    private InventoryPage pageFor(int pageIndex) {
+        InventoryPage page;
+        long loadedGeneration;
+        synchronized (pages) {
+            page = pages.get(pageIndex);
+            loadedGeneration = generation;
+        }
+        if (page == null) {
+            page = loadPage(pageIndex);
+            cache(pageIndex, page, loadedGeneration);
+            prefetch(pageIndex - 1, loadedGeneration);
+            prefetch(pageIndex + 1, loadedGeneration);
+        }
+        return page;
+    }
+
+    private void prefetch(int pageIndex, long expectedGeneration) {
+        if (pageIndex < 0 || pageIndex * PAGE_SIZE >= getRowCount()) return;
+        synchronized (pages) {
+            if (pages.containsKey(pageIndex)) return;
+        }
+        prefetcher.execute(() -> cache(pageIndex, loadPage(pageIndex), expectedGeneration));
+    }
+
+    // A page read before the last invalidation of the table, or of that page, may be stale; drop it.
+    private void cache(int pageIndex, InventoryPage page, long loadedGeneration) {
+        synchronized (pages) {
+            if (loadedGeneration >= clearedAt && loadedGeneration >= pageClearedAt.getOrDefault(pageIndex, 0L)) {
+                pages.put(pageIndex, page);
+            }
+        }
+    }
+
+    private void invalidate() {
+        synchronized (pages) {
+            pages.clear();
+            pageClearedAt.clear();
+            clearedAt = ++generation;
+            filterStale = query != null;
+            filterVersion++;
+        }
+    }
+
+    // An update moves no rows, so only its page is dropped; with a filter it may join or leave the view.
+    private void invalidateRow(int row) {
+        synchronized (pages) {
+            if (query != null) {
+                invalidate();
+                return;
+            }
+            int pageIndex = row / PAGE_SIZE;
+            pages.remove(pageIndex);
+            pageClearedAt.put(pageIndex, ++generation);
+        }
+    }
+
+    // With a filter active, store rows don't line up with view rows, so every change is a full refresh.
+    @Override
+    public void rowInserted(int row) {
+        invalidate();
+        if (filterStale) refreshAll();
+        else if (SwingUtilities.isEventDispatchThread()) fireTableRowsInserted(row, row);
+        else markDirty(-1);
+    }
+
+    @Override
+    public void rowUpdated(int row) {
+        invalidateRow(row);
+        if (filterStale) refreshAll();
+        else if (SwingUtilities.isEventDispatchThread()) fireTableRowsUpdated(row, row);
+        else markDirty(row);
+    }
+
+    @Override
+    public void rowDeleted(int row) {
+        invalidate();
+        if (filterStale) refreshAll();
+        else if (SwingUtilities.isEventDispatchThread()) fireTableRowsDeleted(row, row);
+        else markDirty(-1);
+    }
+
+    @Override
+    public void rowsReloaded() {
+        invalidate();
+        refreshAll();
+    }
+
+    private void refreshAll() {
+        if (SwingUtilities.isEventDispatchThread()) fireTableDataChanged();
+        else markDirty(-1);
+    }
+
+    // Off-EDT changes only widen the pending dirty range; at most one flush per frame reaches the EDT.
+    // A row of -1 means rows moved, which can only be described as a full data change.
+    private void markDirty(int row) {
+        synchronized (pendingLock) {
+            if (row < 0) {
+                structureDirty = true;
+            } else {
+                dirtyFrom = Math.min(dirtyFrom, row);
+                dirtyTo = Math.max(dirtyTo, row);
+            }
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        Timer timer = new Timer(FRAME_MILLIS, e -> flushDirtyRows());
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    private void flushDirtyRows() {
+        boolean structural;
+        int from, to;
+        synchronized (pendingLock) {
+            structural = structureDirty;
+            from = dirtyFrom;
+            to = dirtyTo;
+            structureDirty = false;
+            dirtyFrom = Integer.MAX_VALUE;
+            dirtyTo = -1;
+            flushScheduled = false;
+        }
+        if (structural) fireTableDataChanged();
+        else if (to >= from) fireTableRowsUpdated(from, Math.min(to, getRowCount() - 1));
+    }
+}
+
+class InventoryQuery {
+    String text;
+    double minPrice = Double.NEGATIVE_INFINITY;
+    double maxPrice = Double.POSITIVE_INFINITY;
+    int minStock = Integer.MIN_VALUE;
+    int maxStock = Integer.MAX_VALUE;
+
+    // Case-insensitive prefix of either the item code or the item name.
+    public InventoryQuery text(String text) {
+        this.text = text == null || text.isEmpty() ? null : text.toLowerCase();
+        return this;
+    }
+
+    public InventoryQuery price(double min, double max) {
+        this.minPrice = min;
+        this.maxPrice = max;
+        return this;
+    }
+
+    public InventoryQuery stock(int min, int max) {
+        this.minStock = min;
+        this.maxStock = max;
+        return this;
+    }
+
+    boolean hasPriceRange() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    boolean hasStockRange() {
+        return minStock != Integer.MIN_VALUE || maxStock != Integer.MAX_VALUE;
+    }
+
+    boolean matches(StockItem item) {
+        return (text == null || item.code.toLowerCase().startsWith(text) || item.name.toLowerCase().startsWith(text))
+                && item.unitPrice >= minPrice && item.unitPrice <= maxPrice
+                && item.stock >= minStock && item.stock <= maxStock;
+    }
+}
+
+// Sorted secondary indexes kept current through InventoryChangeListener and StockLevelListener: lowercased code and name
+// (each suffixed with the code so duplicates stay distinct) for prefix search, and (value, code)
+// pairs for price and stock ranges. A query walks one index range and checks the rest per hit.
+class InventoryIndex implements InventoryChangeListener, StockLevelListener {
+    private static final char SEPARATOR = '\u0000';
+
+    private final InventoryStore store;
+    private final ConcurrentSkipListSet<String> codeIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<String> nameIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<RangeKey> priceIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<RangeKey> stockIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Integer> indexedStock = new ConcurrentHashMap<>();
+    // Events that arrive before the checkpoint is loaded; replayed on top of it, then dropped.
+    private List<Runnable> pending = new ArrayList<>();
+
+    static final class RangeKey implements Comparable<RangeKey> {
+        final double value;
+        final String code;
+
+        RangeKey(double value, String code) {
+            this.value = value;
+            this.code = code;
+        }
+
+        @Override
+        public int compareTo(RangeKey other) {
+            int cmp = Double.compare(value, other.value);
+            return cmp != 0 ? cmp : code.compareTo(other.code);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RangeKey other && compareTo(other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(value) * 31 + code.hashCode();
+        }
+    }
+
+    public InventoryIndex(InventoryStore store) {
+        this.store = store;
+        InventoryPage all = store.checkpoint(() -> {
+            store.addChangeListener(this);
+            store.addStockLevelListener(this);
+        });
+
+        // Skip lists fill far faster in key order than in random order, so sort each key set first.
+        int n = all.size();
+        String[] codeKeys = new String[n];
+        String[] nameKeys = new String[n];
+        RangeKey[] priceKeys = new RangeKey[n];
+        RangeKey[] stockKeys = new RangeKey[n];
+        for (int i = 0; i < n; i++) {
+            codeKeys[i] = all.codes[i].toLowerCase() + SEPARATOR + all.codes[i];
+            nameKeys[i] = all.names[i].toLowerCase() + SEPARATOR + all.codes[i];
+            priceKeys[i] = new RangeKey(all.prices[i], all.codes[i]);
+            stockKeys[i] = new RangeKey(all.stock[i].available(), all.codes[i]);
+            indexedStock.put(all.codes[i], (int) stockKeys[i].value);
+        }
+        bulkLoad(codeIndex, codeKeys);
+        bulkLoad(nameIndex, nameKeys);
+        bulkLoad(priceIndex, priceKeys);
+        bulkLoad(stockIndex, stockKeys);
+
+        synchronized (this) {
+            List<Runnable> events = pending;
+            pending = null;
+            for (Runnable event : events) event.run();
+        }
+    }
+
+    private static <T extends Comparable<T>> void bulkLoad(ConcurrentSkipListSet<T> index, T[] keys) {
+        Arrays.parallelSort(keys);
+        index.addAll(Arrays.asList(keys));
+    }
+
+    @Override
+    public void itemPut(StockItem previous, StockItem current) {
+        if (defer(() -> itemPut(previous, current))) return;
+        if (previous != null) delete(previous);
+        insert(current);
+        reindexStock(current.code);
+    }
+
+    @Override
+    public void itemRemoved(StockItem removed) {
+        if (defer(() -> itemRemoved(removed))) return;
+        delete(removed);
+        reindexStock(removed.code);
+    }
+
+    // Reservations move stock without an itemPut, so the stock index is re-keyed from the live counter.
+    @Override
+    public void stockChanged(String code) {
+        if (defer(() -> stockChanged(code))) return;
+        reindexStock(code);
+    }
+
+    private synchronized boolean defer(Runnable event) {
+        if (pending == null) return false;
+        pending.add(event);
+        return true;
+    }
+
+    public int[] search(InventoryQuery query) {
+        Collection<String> candidates;
+        boolean needsCheck;
+        if (query.text != null) {
+            Set<String> matches = new HashSet<>();
+            collectPrefix(codeIndex, query.text, matches);
+            collectPrefix(nameIndex, query.text, matches);
+            candidates = matches;
+            needsCheck = query.hasPriceRange() || query.hasStockRange();
+        } else if (query.hasPriceRange()) {
+            candidates = codesIn(priceIndex, query.minPrice, query.maxPrice);
+            needsCheck = query.hasStockRange();
+        } else if (query.hasStockRange()) {
+            candidates = codesIn(stockIndex, query.minStock, query.maxStock);
+            needsCheck = false;
+        } else {
+            return null;
+        }
+        if (!needsCheck) return store.rowsOf(candidates);
+
+        List<String> hits = new ArrayList<>();
+        for (String code : candidates) {
+            StockItem item = store.get(code);
+            if (item != null && query.matches(item)) hits.add(code);
+        }
+        return store.rowsOf(hits);
+    }
+
+    private void insert(StockItem item) {
+        codeIndex.add(item.code.toLowerCase() + SEPARATOR + item.code);
+        nameIndex.add(item.name.toLowerCase() + SEPARATOR + item.code);
+        priceIndex.add(new RangeKey(item.unitPrice, item.code));
+    }
+
+    private void delete(StockItem item) {
+        codeIndex.remove(item.code.toLowerCase() + SEPARATOR + item.code);
+        nameIndex.remove(item.name.toLowerCase() + SEPARATOR + item.code);
+        priceIndex.remove(new RangeKey(item.unitPrice, item.code));
+    }
+
+    private void reindexStock(String code) {
+        indexedStock.compute(code, (key, old) -> {
+            if (old != null) stockIndex.remove(new RangeKey(old, key));
+            StockCounter counter = store.counter(key);
+            if (counter == null) return null;
+            int available = counter.available();
+            stockIndex.add(new RangeKey(available, key));
+            return available;
+        });
+    }
+
+    private static void collectPrefix(ConcurrentSkipListSet<String> index, String prefix, Set<String> out) {
+        for (String key : index.subSet(prefix, true, prefix + Character.MAX_VALUE, true)) {
+            out.add(key.substring(key.lastIndexOf(SEPARATOR) + 1));
+        }
+    }
+
+    private static List<String> codesIn(ConcurrentSkipListSet<RangeKey> index, double min, double max) {
+        List<String> codes = new ArrayList<>();
+        for (RangeKey key : index.subSet(new RangeKey(min, ""), true, new RangeKey(max, String.valueOf(Character.MAX_VALUE)), true)) {
+            codes.add(key.code);
+        }
+        return codes;
+    }
+}
+
+class LowStockAlert {
+    final String code;
+    final int stock;
+    final int threshold;
+    final boolean low;
+
+    public LowStockAlert(String code, int stock, int threshold, boolean low) {
+        this.code = code;
+        this.stock = stock;
+        this.threshold = threshold;
+        this.low = low;
+    }
+
+    @Override
+    public String toString() {
+        return low
+                ? String.format("Low stock: %s has %d left (reorder at %d)", code, stock, threshold)
+                : String.format("Restocked: %s has %d (reorder at %d)", code, stock, threshold);
+    }
+}
+
+interface LowStockListener {
+    void thresholdCrossed(LowStockAlert alert);
+}
+
+// Orders every item by headroom (stock - reorder threshold) so the items closest to, or already
+// past, their threshold are at the head of the index. Each stock change re-keys one entry in
+// O(log n) and fires an alert only when the item crosses its threshold in either direction.
+// Custom thresholds are kept per code, so they survive the item being removed and re-added.
+class LowStockMonitor implements InventoryChangeListener, StockLevelListener {
+    private final InventoryStore store;
+    private final int defaultThreshold;
+    private final ConcurrentHashMap<String, Watch> watches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> thresholds = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<InventoryIndex.RangeKey> byHeadroom = new ConcurrentSkipListSet<>();
+    private final List<LowStockListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final class Watch {
+        int threshold;
+        int stock;
+        boolean low;
+
+        Watch(int threshold, int stock) {
+            this.threshold = threshold;
+            this.stock = stock;
+            this.low = stock <= threshold;
+        }
+    }
+
+    public LowStockMonitor(InventoryStore store, int defaultThreshold) {
+        this.store = store;
+        this.defaultThreshold = defaultThreshold;
+        InventoryPage all = store.checkpoint(() -> {
+            store.addChangeListener(this);
+            store.addStockLevelListener(this);
+        });
+        // Events after the checkpoint may already have tracked or removed an item; track() defers to them.
+        for (int i = 0; i < all.size(); i++) {
+            track(all.codes[i]);
+        }
+    }
+
+    public void addListener(LowStockListener listener) {
+        listeners.add(listener);
+    }
+
+    public void setThreshold(String code, int threshold) {
+        thresholds.put(code, threshold);
+        Watch watch;
+        while ((watch = watches.get(code)) != null) {
+            synchronized (watch) {
+                if (watches.get(code) != watch) continue; // replaced meanwhile; retry on the current watch
+                byHeadroom.remove(keyOf(code, watch));
+                watch.threshold = threshold;
+                byHeadroom.add(keyOf(code, watch));
+                checkCrossing(code, watch);
+                return;
+            }
+        }
+    }
+
+    // Items at or below their threshold, most urgent first; never scans the whole inventory.
+    public List<String> lowStockItems(int limit) {
+        List<String> codes = new ArrayList<>();
+        for (InventoryIndex.RangeKey key : byHeadroom.headSet(new InventoryIndex.RangeKey(0, String.valueOf(Character.MAX_VALUE)), true)) {
+            if (codes.size() == limit) break;
+            codes.add(key.code);
+        }
+        return codes;
+    }
+
+    public List<String> closestToThreshold(int limit) {
+        List<String> codes = new ArrayList<>();
+        for (InventoryIndex.RangeKey key : byHeadroom) {
+            if (codes.size() == limit) break;
+            codes.add(key.code);
+        }
+        return codes;
+    }
+
+    @Override
+    public void itemPut(StockItem previous, StockItem current) {
+        if (previous == null) track(current.code);
+        else refresh(current.code, current.stock);
+    }
+
+    @Override
+    public void itemRemoved(StockItem removed) {
+        Watch watch = watches.remove(removed.code);
+        if (watch == null) return;
+        synchronized (watch) {
+            byHeadroom.remove(keyOf(removed.code, watch));
+        }
+    }
+
+    @Override
+    public void stockChanged(String code) {
+        StockCounter counter = store.counter(code);
+        if (counter != null) refresh(code, counter.available());
+    }
+
+    // Stock is read from the live counter; a code already watched or no longer stocked is left alone.
+    private void track(String code) {
+        StockCounter counter = store.counter(code);
+        if (counter == null) return;
+        Watch watch = new Watch(thresholds.getOrDefault(code, defaultThreshold), counter.available());
+        synchronized (watch) {
+            if (watches.putIfAbsent(code, watch) != null) return;
+            if (store.counter(code) == counter) {
+                byHeadroom.add(keyOf(code, watch));
+                if (watch.low) fire(new LowStockAlert(code, watch.stock, watch.threshold, true));
+                return;
+            }
+            watches.remove(code, watch);
+        }
+        // Removed, and perhaps re-added, while this watch was being published: start over from the store.
+        track(code);
+    }
+
+    // Reservation threads may report out of order, so the latest counter value is re-read under the watch lock.
+    private void refresh(String code, int reportedStock) {
+        Watch watch = watches.get(code);
+        if (watch == null) return;
+        synchronized (watch) {
+            // Removed, or removed and re-added, since the lookup: this watch's key is gone for good.
+            if (watches.get(code) != watch) return;
+            StockCounter counter = store.counter(code);
+            int stock = counter != null ? counter.available() : reportedStock;
+            if (stock == watch.stock) return;
+            byHeadroom.remove(keyOf(code, watch));
+            watch.stock = stock;
+            byHeadroom.add(keyOf(code, watch));
+            checkCrossing(code, watch);
+        }
+    }
+
+    private void checkCrossing(String code, Watch watch) {
+        boolean low = watch.stock <= watch.threshold;
+        if (low == watch.low) return;
+        watch.low = low;
+        fire(new LowStockAlert(code, watch.stock, watch.threshold, low));
+    }
+
+    private void fire(LowStockAlert alert) {
+        for (LowStockListener listener : listeners) listener.thresholdCrossed(alert);
+    }
+
+    private static InventoryIndex.RangeKey keyOf(String code, Watch watch) {
+        return new InventoryIndex.RangeKey((double) watch.stock - watch.threshold, code);
+    }
+}
+
+// Ingestion path for scanner and order feeds: producers on any thread submit full item states,
+// later submissions for the same code overwrite pending ones, and a background thread applies
+// whatever has accumulated to the store in batches.
+class InventoryUpdateFeed {
+    private static final int MAX_BATCH = 4096;
+
+    private final InventoryStore store;
+    private final ConcurrentHashMap<String, StockItem> pending = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<String> dirtyCodes = new LinkedBlockingQueue<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final Thread applier;
+
+    public InventoryUpdateFeed(InventoryStore store) {
+        this.store = store;
+        this.applier = new Thread(this::applyLoop, "inventory-feed-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    public void submit(StockItem item) {
+        submitted.incrementAndGet();
+        if (pending.put(item.code, item) == null) {
+            dirtyCodes.offer(item.code);
+        }
+    }
+
+    public long submittedCount() {
+        return submitted.get();
+    }
+
+    public long appliedCount() {
+        return applied.get();
+    }
+
+    public boolean isIdle() {
+        return pending.isEmpty();
+    }
+
+    public void shutdown() {
+        applier.interrupt();
+    }
+
+    private void applyLoop() {
+        List<String> codes = new ArrayList<>(MAX_BATCH);
+        List<StockItem> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                codes.add(dirtyCodes.take());
+                dirtyCodes.drainTo(codes, MAX_BATCH - 1);
+                for (String code : codes) {
+                    StockItem latest = pending.remove(code);
+                    if (latest != null) batch.add(latest);
+                }
+                store.upsertAll(batch);
+                applied.addAndGet(batch.size());
+                codes.clear();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// Durable history for an InventoryStore. Every put/remove is queued under the store's write lock
+// and appended to journal-<gen>.log by a background thread; snapshot-<gen>.bin holds the full
+// inventory as of the moment journal-<gen> was started. Opening replays the newest complete
+// snapshot plus every journal at or after its generation.
+// Stock moved by StockReservations bypasses the store lock; it is journaled as STOCK records that
+// carry the counter's level at write time. If a write fails the writer stops, and snapshot()/close()
+// rethrow the error instead of waiting on it forever.
+class InventoryJournal implements InventoryChangeListener, StockLevelListener, AutoCloseable {
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte STOCK = 3;
+    private static final long WRITER_TIMEOUT_MILLIS = 30_000;
+    static final int SNAPSHOT_MAGIC = 0x494E5631; // "INV1"
+    private static final long SNAPSHOT_EVERY = 1_000_000;
+
+    private final Path directory;
+    private final InventoryStore store;
+    private final LinkedBlockingQueue<JournalEntry> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private final Thread writer;
+    private volatile long generation;
+    // Set once by the writer thread when a disk write fails; the thread then exits.
+    private volatile IOException failure;
+
+    // Writer-thread state.
+    private DataOutputStream out;
+    private long recordsSinceSnapshot;
+
+    private static final class JournalEntry {
+        final byte type;
+        final StockItem item;
+        final String code;
+        final long rotateTo;
+        final CountDownLatch done;
+
+        JournalEntry(byte type, StockItem item, long rotateTo, CountDownLatch done) {
+            this(type, item, null, rotateTo, done);
+        }
+
+        JournalEntry(byte type, StockItem item, String code, long rotateTo, CountDownLatch done) {
+            this.type = type;
+            this.item = item;
+            this.code = code;
+            this.rotateTo = rotateTo;
+            this.done = done;
+        }
+    }
+
+    private InventoryJournal(Path directory, InventoryStore store, long generation) throws IOException {
+        this.directory = directory;
+        this.store = store;
+        this.generation = generation;
+        this.out = openJournal(generation);
+        this.writer = new Thread(this::writeLoop, "inventory-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static InventoryJournal open(Path directory, InventoryStore store) throws IOException {
+        Files.createDirectories(directory);
+        long snapshotGen = latestGeneration(directory, "snapshot-", ".bin");
+        long lastGen = Math.max(snapshotGen, latestGeneration(directory, "journal-", ".log"));
+
+        List<StockItem> loaded = new ArrayList<>();
+        if (snapshotGen >= 0) {
+            loadSnapshot(snapshotFile(directory, snapshotGen), loaded);
+        }
+        Map<String, StockItem> state = new LinkedHashMap<>();
+        for (StockItem item : loaded) state.put(item.code, item);
+        for (long gen = Math.max(snapshotGen, 0); gen <= lastGen; gen++) {
+            replayJournal(journalFile(directory, gen), state);
+        }
+        for (StockItem item : state.values()) store.add(item);
+
+        InventoryJournal journal = new InventoryJournal(directory, store, lastGen + 1);
+        store.addChangeListener(journal);
+        store.addStockLevelListener(journal);
+        return journal;
+    }
+
+    // After a write failure nothing more can reach disk; the error surfaces from snapshot()/close().
+    @Override
+    public void itemPut(StockItem previous, StockItem current) {
+        if (failure == null) queue.offer(new JournalEntry(PUT, current, -1, null));
+    }
+
+    @Override
+    public void itemRemoved(StockItem removed) {
+        if (failure == null) queue.offer(new JournalEntry(REMOVE, removed, -1, null));
+    }
+
+    // Reservations move stock outside the store lock. Only the code is queued: the writer reads the
+    // counter when it writes the record, so the last record for a code always carries its latest level.
+    @Override
+    public void stockChanged(String code) {
+        if (failure == null) queue.offer(new JournalEntry(STOCK, null, code, -1, null));
+    }
+
+    // Writes the snapshot on a background thread; the caller never waits for disk.
+    public void snapshotAsync() {
+        if (snapshotPending.compareAndSet(false, true)) {
+            snapshotter.execute(() -> {
+                try {
+                    snapshot();
+                } finally {
+                    snapshotPending.set(false);
+                }
+            });
+        }
+    }
+
+    // Throws UncheckedIOException if the writer failed or did not drain in time.
+    @Override
+    public void close() {
+        store.removeChangeListener(this);
+        store.removeStockLevelListener(this);
+        CountDownLatch drained = new CountDownLatch(1);
+        queue.offer(new JournalEntry((byte) 0, null, -1, drained));
+        try {
+            awaitWriter(drained, "Closing the inventory journal");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writer.interrupt();
+            snapshotter.shutdown();
+        }
+    }
+
+    private void awaitWriter(CountDownLatch latch, String action) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITER_TIMEOUT_MILLIS);
+        while (!latch.await(50, TimeUnit.MILLISECONDS)) {
+            throwIfFailed(action);
+            if (System.nanoTime() - deadline > 0) {
+                throw new UncheckedIOException(new IOException(action + " timed out waiting for the journal writer"));
+            }
+        }
+        throwIfFailed(action);
+    }
+
+    private void throwIfFailed(String action) {
+        IOException error = failure;
+        if (error != null) throw new UncheckedIOException(action + " failed: journal write error", error);
+    }
+
+    private void writeLoop() {
+        List<JournalEntry> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (JournalEntry entry : batch) {
+                    if (entry.type == PUT || entry.type == REMOVE) {
+                        writeRecord(out, entry.type, entry.item);
+                        recordsSinceSnapshot++;
+                    } else if (entry.type == STOCK) {
+                        StockCounter counter = store.counter(entry.code);
+                        if (counter == null) continue; // removed since; its REMOVE record is queued
+                        out.writeByte(STOCK);
+                        writeString(out, entry.code);
+                        out.writeInt(counter.available());
+                        recordsSinceSnapshot++;
+                    } else {
+                        out.flush();
+                        if (entry.rotateTo >= 0) {
+                            out.close();
+                            out = openJournal(entry.rotateTo);
+                            recordsSinceSnapshot = 0;
+                        }
+                        entry.done.countDown();
+                    }
+                }
+                out.flush();
+                batch.clear();
+                if (recordsSinceSnapshot >= SNAPSHOT_EVERY) snapshotAsync();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Record the failure and release everyone waiting on this thread; they rethrow it.
+            failure = e;
+            queue.drainTo(batch);
+            for (JournalEntry entry : batch) {
+                if (entry.done != null) entry.done.countDown();
+            }
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public synchronized void snapshot() {
+        try {
+            long next = generation + 1;
+            CountDownLatch rotated = new CountDownLatch(1);
+            InventoryPage page = store.checkpoint(() -> queue.offer(new JournalEntry((byte) 0, null, next, rotated)));
+            generation = next;
+
+            Path temp = directory.resolve("snapshot-" + next + ".tmp");
+            writeSnapshotFile(temp, page);
+            Files.move(temp, snapshotFile(directory, next), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            awaitWriter(rotated, "Inventory snapshot");
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    long gen = generationOf(file.getFileName().toString());
+                    if (gen >= 0 && gen < next) Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory snapshot failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private DataOutputStream openJournal(long gen) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalFile(directory, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, StockItem item) throws IOException {
+        out.writeByte(type);
+        writeString(out, item.code);
+        if (type == PUT) {
+            writeString(out, item.name);
+            out.writeInt(item.stock);
+            out.writeDouble(item.unitPrice);
+        }
+    }
+
+    // Also the binary export format (see InventoryTransfer).
+    static void writeSnapshotFile(Path file, InventoryPage page) throws IOException {
+        try (DataOutputStream snapshot = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            snapshot.writeInt(SNAPSHOT_MAGIC);
+            snapshot.writeInt(page.size());
+            for (int i = 0; i < page.size(); i++) {
+                writeString(snapshot, page.codes[i]);
+                writeString(snapshot, page.names[i]);
+                snapshot.writeInt(page.stock[i].available());
+                snapshot.writeDouble(page.prices[i]);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Text longer than 65535 bytes cannot be journaled.");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Snapshots are read through a memory mapping instead of a stream of small reads.
+    static void loadSnapshot(Path file, List<StockItem> items) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than a single 2 GB mapping.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an inventory snapshot: " + file);
+            }
+            int count = buffer.getInt();
+            byte[] scratch = new byte[0xFFFF];
+            for (int i = 0; i < count; i++) {
+                String code = readString(buffer, scratch);
+                String name = readString(buffer, scratch);
+                items.add(new StockItem(code, name, buffer.getInt(), buffer.getDouble()));
+            }
+        }
+    }
+
+    static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Applies records in order on top of the snapshot state. A torn final record is ignored.
+    private static void replayJournal(Path file, Map<String, StockItem> state) throws IOException {
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte type = in.readByte();
+                String code = readString(in);
+                if (type == PUT) {
+                    String name = readString(in);
+                    state.put(code, new StockItem(code, name, in.readInt(), in.readDouble()));
+                } else if (type == REMOVE) {
+                    state.remove(code);
+                } else if (type == STOCK) {
+                    int stock = in.readInt();
+                    state.computeIfPresent(code, (c, item) -> new StockItem(c, item.name, stock, item.unitPrice));
+                } else {
+                    throw new IOException("Corrupt journal record in " + file);
+                }
+            }
+        } catch (EOFException endOfJournal) {
+            // Clean end of file or a record cut short by a crash.
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long latestGeneration(Path directory, String prefix, String suffix) throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                latest = Math.max(latest, generationOf(file.getFileName().toString()));
+            }
+        }
+        return latest;
+    }
+
+    private static long generationOf(String fileName) {
+        int dash = fileName.indexOf('-');
+        int dot = fileName.lastIndexOf('.');
+        if (dash < 0 || dot <= dash || fileName.endsWith(".tmp")) return -1;
+        try {
+            return Long.parseLong(fileName.substring(dash + 1, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Path snapshotFile(Path directory, long gen) {
+        return directory.resolve("snapshot-" + gen + ".bin");
+    }
+
+    private static Path journalFile(Path directory, long gen) {
+        return directory.resolve("journal-" + gen + ".log");
+    }
+}
+
+class ImportResult {
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    long imported;
+    long rejected;
+    final List<String> errors = new ArrayList<>();
+
+    void reject(long lineNumber, String message) {
+        reject("Line " + lineNumber, message);
+    }
+
+    void reject(String location, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(location + ": " + message);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("Imported %,d items, rejected %,d rows.", imported, rejected));
+        for (String error : errors) summary.append("\n").append(error);
+        if (rejected > errors.size()) summary.append("\n... and ").append(String.format("%,d", rejected - errors.size())).append(" more");
+        return summary.toString();
+    }
+}
+
+// Streaming bulk import/export. CSV is read sequentially in fixed-size chunks that are parsed in
+// parallel (a bounded number in flight) and loaded into the store in file order; table listeners
+// get a single reload when the whole file is in. Binary files use the snapshot format.
+class InventoryTransfer {
+    private static final String CSV_HEADER = "code,name,stock,unitPrice";
+    private static final int CHUNK_LINES = 16_384;
+    private static final int MAX_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final class ParsedChunk {
+        final List<StockItem> items = new ArrayList<>(CHUNK_LINES);
+        final ImportResult errors = new ImportResult();
+    }
+
+    public static ImportResult importCsv(Path file, InventoryStore store) throws IOException {
+        ImportResult result = new ImportResult();
+        ArrayDeque<CompletableFuture<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            long lineNumber = 1;
+            if (line != null && !line.trim().equalsIgnoreCase(CSV_HEADER)) {
+                lineNumber = 0; // no header: the first line is data
+            } else {
+                line = reader.readLine();
+            }
+
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long chunkStart = lineNumber + 1;
+            for (; line != null; line = reader.readLine()) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    submit(inFlight, lines, chunkStart, store, result);
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    chunkStart = lineNumber + 1;
+                }
+            }
+            if (!lines.isEmpty()) submit(inFlight, lines, chunkStart, store, result);
+            while (!inFlight.isEmpty()) load(inFlight.poll(), store, result);
+        } finally {
+            store.fireRowsReloaded();
+        }
+        return result;
+    }
+
+    // Snapshot records vary in length, so one pass over the mapping only finds where each chunk of records
+    // ends; decoding and validation run in parallel under the same in-flight bound as the CSV import.
+    public static ImportResult importBinary(Path file, InventoryStore store) throws IOException {
+        ImportResult result = new ImportResult();
+        ArrayDeque<CompletableFuture<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than a single 2 GB mapping.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != InventoryJournal.SNAPSHOT_MAGIC) {
+                throw new IOException("Not an inventory snapshot: " + file);
+            }
+            int count = buffer.getInt();
+
+            int chunkStart = buffer.position(), position = chunkStart, records = 0;
+            long firstRecord = 1;
+            for (long record = 1; record <= count; record++) {
+                int end = recordEnd(buffer, position);
+                if (end < 0) {
+                    result.reject("Record " + record, "snapshot ends inside this record");
+                    result.rejected += count - record;
+                    break;
+                }
+                position = end;
+                if (++records == CHUNK_LINES) {
+                    submitRecords(inFlight, buffer.slice(chunkStart, position - chunkStart), firstRecord, records, store, result);
+                    chunkStart = position;
+                    firstRecord = record + 1;
+                    records = 0;
+                }
+            }
+            if (records > 0) {
+                submitRecords(inFlight, buffer.slice(chunkStart, position - chunkStart), firstRecord, records, store, result);
+            }
+            while (!inFlight.isEmpty()) load(inFlight.poll(), store, result);
+        } finally {
+            store.fireRowsReloaded();
+        }
+        return result;
+    }
+
+    public static long exportCsv(InventoryStore store, Path file) throws IOException {
+        InventoryPage all = store.checkpoint(() -> { });
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (int i = 0; i < all.size(); i++) {
+                writer.write(csvField(all.codes[i]));
+                writer.write(',');
+                writer.write(csvField(all.names[i]));
+                writer.write(',');
+                writer.write(Integer.toString(all.stock[i].available()));
+                writer.write(',');
+                writer.write(Double.toString(all.prices[i]));
+                writer.newLine();
+            }
+        }
+        return all.size();
+    }
+
+    public static long exportBinary(InventoryStore store, Path file) throws IOException {
+        InventoryPage all = store.checkpoint(() -> { });
+        InventoryJournal.writeSnapshotFile(file, all);
+        return all.size();
+    }
+
+    private static void submit(ArrayDeque<CompletableFuture<ParsedChunk>> inFlight, List<String> lines,
+                               long firstLine, InventoryStore store, ImportResult result) {
+        if (inFlight.size() >= MAX_IN_FLIGHT) load(inFlight.poll(), store, result);
+        inFlight.add(CompletableFuture.supplyAsync(() -> parseChunk(lines, firstLine)));
+    }
+
+    private static void submitRecords(ArrayDeque<CompletableFuture<ParsedChunk>> inFlight, ByteBuffer records,
+                                      long firstRecord, int count, InventoryStore store, ImportResult result) {
+        if (inFlight.size() >= MAX_IN_FLIGHT) load(inFlight.poll(), store, result);
+        inFlight.add(CompletableFuture.supplyAsync(() -> parseRecords(records, firstRecord, count)));
+    }
+
+    // Offset just past the snapshot record starting at offset, or -1 if the file ends inside it.
+    private static int recordEnd(ByteBuffer buffer, int offset) {
+        for (int field = 0; field < 2; field++) {
+            if (buffer.limit() - offset < Short.BYTES) return -1;
+            offset += Short.BYTES + Short.toUnsignedInt(buffer.getShort(offset));
+        }
+        offset += Integer.BYTES + Double.BYTES;
+        return offset <= buffer.limit() ? offset : -1;
+    }
+
+    private static ParsedChunk parseRecords(ByteBuffer records, long firstRecord, int count) {
+        ParsedChunk chunk = new ParsedChunk();
+        byte[] scratch = new byte[0xFFFF];
+        for (int i = 0; i < count; i++) {
+            String code = InventoryJournal.readString(records, scratch);
+            String name = InventoryJournal.readString(records, scratch);
+            int stock = records.getInt();
+            double unitPrice = records.getDouble();
+            if (code.isBlank()) {
+                chunk.errors.reject("Record " + (firstRecord + i), "item code is empty");
+            } else if (!Double.isFinite(unitPrice)) {
+                chunk.errors.reject("Record " + (firstRecord + i), "Unit Price is not a finite number");
+            } else {
+                chunk.items.add(new StockItem(code, name, stock, unitPrice));
+            }
+        }
+        return chunk;
+    }
+
+    private static void load(CompletableFuture<ParsedChunk> pending, InventoryStore store, ImportResult result) {
+        ParsedChunk chunk = pending.join();
+        store.upsertAllQuietly(chunk.items);
+        result.imported += chunk.items.size();
+        result.rejected += chunk.errors.rejected;
+        for (String error : chunk.errors.errors) {
+            if (result.errors.size() < ImportResult.MAX_REPORTED_ERRORS) result.errors.add(error);
+        }
+    }
+
+    private static ParsedChunk parseChunk(List<String> lines, long firstLine) {
+        ParsedChunk chunk = new ParsedChunk();
+        for (int i = 0; i < lines.size(); i++) {
+            long lineNumber = firstLine + i;
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 4) {
+                chunk.errors.reject(lineNumber, "expected 4 fields but found " + fields.size());
+                continue;
+            }
+            String code = fields.get(0).trim();
+            if (code.isEmpty()) {
+                chunk.errors.reject(lineNumber, "item code is empty");
+                continue;
+            }
+            try {
+                chunk.items.add(StockItem.parse(code, fields.get(1), fields.get(2), fields.get(3)));
+            } catch (NumberFormatException e) {
+                chunk.errors.reject(lineNumber, "invalid number for Stock or Unit Price");
+            }
+        }
+        return chunk;
+    }
+
+    // Minimal RFC 4180: commas inside double quotes and "" as an escaped quote; no multi-line fields.
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
+
+class InventoryBenchmark {
+
+    public static void run(int itemCount) {
+        InventoryStore store = new InventoryStore();
+        Random random = new Random(42);
+
+        System.out.println("=== Inventory Store Churn (" + String.format("%,d", itemCount) + " items) ===");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < itemCount; i++) {
+            store.add(new StockItem("SKU" + i, "Item " + i, random.nextInt(500), 1 + random.nextInt(10_000) / 100.0));
+        }
+        report("Add", itemCount, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < itemCount; i++) {
+            int id = random.nextInt(itemCount);
+            store.update(new StockItem("SKU" + id, "Item " + id, random.nextInt(500), 1 + random.nextInt(10_000) / 100.0));
+        }
+        report("Update", itemCount, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < itemCount; i++) {
+            checksum += store.getAt(random.nextInt(store.size())).stock;
+        }
+        report("Row lookup", itemCount, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        int pageReads = Math.max(1, itemCount / 256);
+        for (int i = 0; i < pageReads; i++) {
+            checksum += store.readPage(random.nextInt(store.size()), 256).size();
+        }
+        report("Page read (256 rows)", pageReads, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < itemCount; i++) {
+            int id = random.nextInt(itemCount);
+            if (!store.remove("SKU" + id)) {
+                store.add(new StockItem("SKU" + id, "Item " + id, 1, 1.0));
+            }
+        }
+        report("Delete/re-add churn", itemCount, System.nanoTime() - start);
+
+        InventoryUpdateFeed feed = new InventoryUpdateFeed(store);
+        int producers = 4;
+        int perProducer = itemCount / producers;
+        Thread[] threads = new Thread[producers];
+        start = System.nanoTime();
+        for (int t = 0; t < producers; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                Random local = new Random(seed);
+                for (int i = 0; i < perProducer; i++) {
+                    int id = local.nextInt(10_000);
+                    feed.submit(new StockItem("SKU" + id, "Item " + id, local.nextInt(500), 9.99));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        while (!feed.isIdle()) Thread.onSpinWait();
+        report("Feed submit (4 threads)", producers * perProducer, System.nanoTime() - start);
+        System.out.printf("Feed coalesced %,d submissions into %,d store writes%n", feed.submittedCount(), feed.appliedCount());
+        feed.shutdown();
+
+        runSearch(store);
+        runLowStock(store);
+        runReservationStress(store);
+        runPersistence(itemCount);
+        runImport(itemCount);
+
+        System.out.println("Rows remaining: " + String.format("%,d", store.size()) + " (checksum " + checksum + ")");
+    }
+
+    // Many threads draining one SKU must never sell more than was on the shelf, and threads
+    // working on distinct SKUs should scale with the thread count.
+    private static void runReservationStress(InventoryStore store) {
+        StockReservations reservations = new StockReservations(store);
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int shelf = 100_000;
+
+        store.add(new StockItem("HOT", "Hot Item", shelf, 1.0));
+        AtomicLong sold = new AtomicLong();
+        runThreads(threads, t -> {
+            for (int i = 0; i < shelf; i++) {
+                if (i % 2 == 0) {
+                    if (reservations.decrementIfAvailable("HOT", 1)) sold.incrementAndGet();
+                } else {
+                    Reservation reservation = reservations.reserve("HOT", 1);
+                    if (reservation == null) continue;
+                    if (i % 3 == 0) {
+                        reservations.release(reservation);
+                    } else {
+                        reservations.commit(reservation);
+                        sold.incrementAndGet();
+                    }
+                }
+            }
+        });
+        StockCounter hot = store.counter("HOT");
+        System.out.printf("Oversell check: sold %,d of %,d, left %d, reserved %d -> %s%n", sold.get(), shelf,
+                hot.available(), hot.reserved(), sold.get() + hot.available() == shelf && hot.reserved() == 0 ? "OK" : "OVERSOLD");
+        System.out.println("Contention " + reservations.contentionReport("HOT"));
+
+        int opsPerThread = 2_000_000;
+        for (int t = 0; t < threads; t++) {
+            store.add(new StockItem("DISTINCT" + t, "Distinct " + t, Integer.MAX_VALUE, 1.0));
+        }
+        for (int count = 1; count <= threads; count *= 2) {
+            long start = System.nanoTime();
+            runThreads(count, t -> {
+                String code = "DISTINCT" + t;
+                for (int i = 0; i < opsPerThread; i++) {
+                    Reservation reservation = reservations.reserve(code, 1);
+                    reservations.commit(reservation);
+                }
+            });
+            long nanos = System.nanoTime() - start;
+            System.out.printf("Reserve+commit, %2d threads on distinct SKUs: %,.0f ops/ms%n",
+                    count, count * (double) opsPerThread / (nanos / 1e6));
+        }
+    }
+
+    private static void runSearch(InventoryStore store) {
+        long start = System.nanoTime();
+        InventoryIndex index = new InventoryIndex(store);
+        report("Index build", store.size(), System.nanoTime() - start);
+
+        String[] prefixes = {"item 4242", "sku1234", "item 99999", "sku7"};
+        for (String prefix : prefixes) {
+            start = System.nanoTime();
+            int[] rows = index.search(new InventoryQuery().text(prefix));
+            System.out.printf("Search '%s': %,d rows in %.2f ms%n", prefix, rows.length, (System.nanoTime() - start) / 1e6);
+        }
+
+        start = System.nanoTime();
+        int[] rows = index.search(new InventoryQuery().price(10.00, 10.50).stock(0, 50));
+        System.out.printf("Search price 10.00-10.50 and stock <= 50: %,d rows in %.2f ms%n",
+                rows.length, (System.nanoTime() - start) / 1e6);
+        store.removeChangeListener(index);
+        store.removeStockLevelListener(index);
+    }
+
+    private static void runLowStock(InventoryStore store) {
+        long start = System.nanoTime();
+        LowStockMonitor monitor = new LowStockMonitor(store, 10);
+        report("Low-stock index build", store.size(), System.nanoTime() - start);
+
+        AtomicLong alerts = new AtomicLong();
+        monitor.addListener(alert -> alerts.incrementAndGet());
+        StockReservations reservations = new StockReservations(store);
+        Random random = new Random(7);
+        int sales = 1_000_000;
+        start = System.nanoTime();
+        for (int i = 0; i < sales; i++) {
+            StockItem item = store.getAt(random.nextInt(store.size()));
+            reservations.decrementIfAvailable(item.code, 1 + random.nextInt(5));
+        }
+        report("Sale + threshold check", sales, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        List<String> urgent = monitor.closestToThreshold(10);
+        System.out.printf("Threshold alerts fired: %,d; 10 most urgent %s in %.3f ms%n",
+                alerts.get(), urgent, (System.nanoTime() - start) / 1e6);
+        store.removeChangeListener(monitor);
+        store.removeStockLevelListener(monitor);
+    }
+
+    private static void runPersistence(int itemCount) {
+        try {
+            Path directory = Files.createTempDirectory("inventory-journal");
+            InventoryStore store = new InventoryStore();
+            InventoryJournal journal = InventoryJournal.open(directory, store);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < itemCount; i++) {
+                store.add(new StockItem("SKU" + i, "Item " + i, i % 500, 9.99));
+            }
+            for (int i = 0; i < itemCount / 10; i++) {
+                store.remove("SKU" + (i * 10));
+            }
+            // Sales through the reservation path never touch the store lock but must still be journaled.
+            StockReservations sales = new StockReservations(store);
+            int sold = 0;
+            for (int i = 1; i < itemCount; i += 10) {
+                if (sales.decrementIfAvailable("SKU" + i, 1)) sold++;
+            }
+            journal.close();
+            report("Journal writes", itemCount + itemCount / 10 + sold, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            InventoryStore replayed = new InventoryStore();
+            journal = InventoryJournal.open(directory, replayed);
+            report("Reopen (journal only)", replayed.size(), System.nanoTime() - start);
+            boolean salesKept = true;
+            for (int i = 1; i < itemCount; i += 10) {
+                salesKept &= replayed.counter("SKU" + i).available() == store.counter("SKU" + i).available();
+            }
+            System.out.println("Reservation-path stock survives reopen: " + salesKept);
+
+            start = System.nanoTime();
+            journal.snapshot();
+            journal.close();
+            report("Snapshot", replayed.size(), System.nanoTime() - start);
+
+            start = System.nanoTime();
+            InventoryStore reloaded = new InventoryStore();
+            journal = InventoryJournal.open(directory, reloaded);
+            report("Reopen (snapshot)", reloaded.size(), System.nanoTime() - start);
+            journal.close();
+
+            System.out.println("Reloaded rows match: " + (reloaded.size() == itemCount - itemCount / 10));
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) Files.delete(file);
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final long IMPORT_BUDGET_MS_PER_MILLION_ROWS = 10_000;
+
+    private static void runImport(int itemCount) {
+        try {
+            Path csv = Files.createTempFile("inventory-import", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+                writer.write("code,name,stock,unitPrice");
+                writer.newLine();
+                for (int i = 0; i < itemCount; i++) {
+                    writer.write("SKU" + i + ",\"Item " + i + ", boxed\"," + (i % 500) + "," + (1 + i % 10_000 / 100.0));
+                    writer.newLine();
+                }
+                writer.write("BROKEN,Bad Row,many,1.0");
+                writer.newLine();
+            }
+
+            InventoryStore store = new InventoryStore();
+            AtomicLong reloads = new AtomicLong();
+            store.addListener(new InventoryListener() {
+                public void rowInserted(int row) { reloads.addAndGet(1_000_000); }
+                public void rowUpdated(int row) { reloads.addAndGet(1_000_000); }
+                public void rowDeleted(int row) { reloads.addAndGet(1_000_000); }
+                public void rowsReloaded() { reloads.incrementAndGet(); }
+            });
+
+            long start = System.nanoTime();
+            ImportResult result = InventoryTransfer.importCsv(csv, store);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long budget = Math.max(IMPORT_BUDGET_MS_PER_MILLION_ROWS,
+                    IMPORT_BUDGET_MS_PER_MILLION_ROWS * itemCount / 1_000_000);
+            report("CSV import", itemCount, millis * 1_000_000);
+            System.out.println(result);
+            System.out.printf("Import budget %,d ms: %s; table refresh events: %d%n",
+                    budget, millis <= budget ? "PASS" : "FAIL", reloads.get());
+            if (millis > budget) {
+                throw new IllegalStateException("CSV import of " + itemCount + " rows took " + millis + " ms, over the " + budget + " ms budget");
+            }
+
+            Path binary = Files.createTempFile("inventory-export", ".bin");
+            start = System.nanoTime();
+            InventoryTransfer.exportBinary(store, binary);
+            report("Binary export", store.size(), System.nanoTime() - start);
+            start = System.nanoTime();
+            InventoryStore binaryStore = new InventoryStore();
+            ImportResult reloaded = InventoryTransfer.importBinary(binary, binaryStore);
+            report("Binary import", (int) reloaded.imported, System.nanoTime() - start);
+            boolean binaryMatches = binaryStore.size() == store.size() && reloaded.rejected == 0;
+            System.out.println("Binary import rows match: " + binaryMatches);
+
+            // A snapshot cut off mid-record keeps every complete record and reports the rest.
+            byte[] bytes = Files.readAllBytes(binary);
+            Path cut = Files.createTempFile("inventory-truncated", ".bin");
+            Files.write(cut, Arrays.copyOf(bytes, bytes.length - 3));
+            ImportResult truncated = InventoryTransfer.importBinary(cut, new InventoryStore());
+            Files.delete(cut);
+            boolean truncationReported = truncated.imported == store.size() - 1 && truncated.rejected == 1;
+            System.out.println("Truncated snapshot: " + truncated.imported + " imported, " + truncated.rejected
+                    + " rejected: " + (truncationReported ? "PASS" : "FAIL"));
+            if (!binaryMatches || !truncationReported) {
+                throw new IllegalStateException("Binary import did not round-trip the exported snapshot");
+            }
+
+            Files.delete(csv);
+            Files.delete(binary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void runThreads(int count, IntConsumer body) {
+        Thread[] workers = new Thread[count];
+        for (int t = 0; t < count; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> body.accept(id));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void report(String label, int ops, long nanos) {
+        System.out.printf("%-24s %,10d ops in %8.2f ms (%,.0f ns/op)%n", label, ops, nanos / 1e6, (double) nanos / ops);
+    }
 }
 
 public class InventoryManagerUI extends JFrame {
-    private JTextField codeField, nameField, stockField, priceField;
-    private JButton insertBtn, modifyBtn, removeBtn;
-    private DefaultTableModel stockTableModel;
+    private JTextField codeField, nameField, stockField, priceField, searchField;
+    private JButton insertBtn, modifyBtn, removeBtn, importBtn, exportBtn;
+    private InventoryTableModel stockTableModel;
     private JTable stockTable;
 
-    private final Map<String, StockItem> stockData = new HashMap<>();
-    private final Map<String, Integer> rowLookup = new HashMap<>();
+    private final InventoryStore store;
+    private InventoryIndex searchIndex;
+    private LowStockMonitor lowStockMonitor;
+    private JLabel alertLabel;
 
-    public InventoryManagerUI() {
+    public InventoryManagerUI(InventoryStore store) {
+        this.store = store;
         setTitle("Smart Inventory Manager");
         setSize(850, 480);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -42,6 +2284,24 @@ public class InventoryManagerUI extends JFrame {
     private void initComponents() {
         add(buildFormPanel(), BorderLayout.NORTH);
         add(buildTablePanel(), BorderLayout.CENTER);
+        add(buildAlertBar(), BorderLayout.SOUTH);
+    }
+
+    private JLabel buildAlertBar() {
+        alertLabel = new JLabel(" ");
+        alertLabel.setBorder(BorderFactory.createEmptyBorder(4, 10, 6, 10));
+
+        lowStockMonitor = new LowStockMonitor(store, 10);
+        lowStockMonitor.addListener(alert -> SwingUtilities.invokeLater(() -> {
+            alertLabel.setForeground(alert.low ? Color.RED.darker() : Color.GREEN.darker());
+            alertLabel.setText((alert.low ? "⚠️ " : "✅ ") + alert);
+        }));
+        List<String> urgent = lowStockMonitor.lowStockItems(5);
+        if (!urgent.isEmpty()) {
+            alertLabel.setForeground(Color.RED.darker());
+            alertLabel.setText("⚠️ Low stock: " + String.join(", ", urgent));
+        }
+        return alertLabel;
     }
 
     private JPanel buildFormPanel() {
@@ -63,6 +2323,8 @@ public class InventoryManagerUI extends JFrame {
         priceField = new JTextField(12);
 
         insertBtn = new JButton("Add Item");
+        importBtn = new JButton("Import...");
+        exportBtn = new JButton("Export...");
         modifyBtn = new JButton("Update Item");
         removeBtn = new JButton("Delete Item");
 
@@ -91,6 +2353,8 @@ public class InventoryManagerUI extends JFrame {
         buttonPanel.add(insertBtn);
         buttonPanel.add(modifyBtn);
         buttonPanel.add(removeBtn);
+        buttonPanel.add(importBtn);
+        buttonPanel.add(exportBtn);
 
         gbc.gridx = 0; gbc.gridy = 2;
         gbc.gridwidth = 4;
@@ -98,15 +2362,17 @@ public class InventoryManagerUI extends JFrame {
 
         // Button Actions
         insertBtn.addActionListener(e -> insertItem());
+        importBtn.addActionListener(e -> importFile());
+        exportBtn.addActionListener(e -> exportFile());
         modifyBtn.addActionListener(e -> modifyItem());
         removeBtn.addActionListener(e -> removeItem());
 
         return formPanel;
     }
 
-    private JScrollPane buildTablePanel() {
-        String[] headers = {"Item Code", "Item Name", "Stock", "Unit Price"};
-        stockTableModel = new DefaultTableModel(headers, 0);
+    private JPanel buildTablePanel() {
+        stockTableModel = new InventoryTableModel(store);
+        searchIndex = new InventoryIndex(store);
         stockTable = new JTable(stockTableModel);
         stockTable.setRowHeight(22);
         stockTable.setFont(new Font("SansSerif", Font.PLAIN, 14));
@@ -115,6 +2381,7 @@ public class InventoryManagerUI extends JFrame {
         stockTable.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
                 int row = stockTable.getSelectedRow();
+                if (row < 0) return;
                 codeField.setText(stockTableModel.getValueAt(row, 0).toString());
                 nameField.setText(stockTableModel.getValueAt(row, 1).toString());
                 stockField.setText(stockTableModel.getValueAt(row, 2).toString());
@@ -122,12 +2389,31 @@ public class InventoryManagerUI extends JFrame {
             }
         });
 
-        return new JScrollPane(stockTable);
+        searchField = new JTextField(20);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { applySearch(); }
+            public void removeUpdate(DocumentEvent e) { applySearch(); }
+            public void changedUpdate(DocumentEvent e) { applySearch(); }
+        });
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        searchPanel.add(new JLabel("Search code or name:"));
+        searchPanel.add(searchField);
+
+        JPanel tablePanel = new JPanel(new BorderLayout(0, 6));
+        tablePanel.add(searchPanel, BorderLayout.NORTH);
+        tablePanel.add(new JScrollPane(stockTable), BorderLayout.CENTER);
+        return tablePanel;
+    }
+
+    private void applySearch() {
+        String text = searchField.getText().trim();
+        stockTableModel.setFilter(searchIndex, text.isEmpty() ? null : new InventoryQuery().text(text));
     }
 
     private void insertItem() {
         String code = codeField.getText().trim();
-        if (stockData.containsKey(code)) {
+        if (store.contains(code)) {
             showMessage("Item code already exists.");
             return;
         }
@@ -135,16 +2421,17 @@ public class InventoryManagerUI extends JFrame {
         StockItem item = parseFields(code);
         if (item == null) return;
 
-        stockData.put(code, item);
-        stockTableModel.addRow(new Object[]{item.code, item.name, item.stock, item.unitPrice});
-        rowLookup.put(code, stockTableModel.getRowCount() - 1);
+        if (!store.add(item)) {
+            showMessage("Item code already exists.");
+            return;
+        }
 
         resetFields();
     }
 
     private void modifyItem() {
         String code = codeField.getText().trim();
-        if (!stockData.containsKey(code)) {
+        if (!store.contains(code)) {
             showMessage("Item not found.");
             return;
         }
@@ -152,39 +2439,74 @@ public class InventoryManagerUI extends JFrame {
         StockItem updated = parseFields(code);
         if (updated == null) return;
 
-        stockData.put(code, updated);
-        int row = rowLookup.get(code);
-        stockTableModel.setValueAt(updated.name, row, 1);
-        stockTableModel.setValueAt(updated.stock, row, 2);
-        stockTableModel.setValueAt(updated.unitPrice, row, 3);
+        if (!store.update(updated)) {
+            showMessage("Item not found.");
+            return;
+        }
 
         resetFields();
     }
 
     private void removeItem() {
         String code = codeField.getText().trim();
-        if (!stockData.containsKey(code)) {
+        if (!store.remove(code)) {
             showMessage("Item not found.");
             return;
         }
 
-        int row = rowLookup.get(code);
-        stockTableModel.removeRow(row);
-        stockData.remove(code);
-        rowLookup.remove(code);
+        resetFields();
+    }
+
+    // .bin files use the binary snapshot format, anything else is treated as CSV.
+    private void importFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        runInBackground(() -> {
+            ImportResult result = file.toString().endsWith(".bin")
+                    ? InventoryTransfer.importBinary(file, store)
+                    : InventoryTransfer.importCsv(file, store);
+            return result.toString();
+        });
+    }
 
-        // Recalculate row indexes
-        rowLookup.replaceAll((key, val) -> val > row ? val - 1 : val);
+    private void exportFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        runInBackground(() -> {
+            long count = file.toString().endsWith(".bin")
+                    ? InventoryTransfer.exportBinary(store, file)
+                    : InventoryTransfer.exportCsv(store, file);
+            return String.format("Exported %,d items to %s", count, file.getFileName());
+        });
+    }
 
-        resetFields();
+    private void runInBackground(Callable<String> task) {
+        importBtn.setEnabled(false);
+        exportBtn.setEnabled(false);
+        new SwingWorker<String, Void>() {
+            protected String doInBackground() throws Exception {
+                return task.call();
+            }
+
+            protected void done() {
+                importBtn.setEnabled(true);
+                exportBtn.setEnabled(true);
+                try {
+                    showMessage(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    showMessage("Transfer failed: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
     }
 
     private StockItem parseFields(String code) {
         try {
-            String name = nameField.getText().trim();
-            int stock = Integer.parseInt(stockField.getText().trim());
-            double price = Double.parseDouble(priceField.getText().trim());
-            return new StockItem(code, name, stock, price);
+            return StockItem.parse(code, nameField.getText(), stockField.getText(), priceField.getText());
         } catch (NumberFormatException e) {
             showMessage("Please enter valid numbers for Stock and Unit Price.");
             return null;
@@ -202,7 +2524,25 @@ public class InventoryManagerUI extends JFrame {
         JOptionPane.showMessageDialog(this, msg);
     }
 
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(InventoryManagerUI::new);
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--benchmark")) {
+            InventoryBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+
+        Path dataDir = args.length > 1 && args[0].equals("--data")
+                ? Path.of(args[1])
+                : Path.of(System.getProperty("user.home"), ".smart-inventory");
+        InventoryStore store = new InventoryStore();
+        InventoryJournal journal = InventoryJournal.open(dataDir, store);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.snapshot();
+            } finally {
+                journal.close();
+            }
+        }));
+
+        SwingUtilities.invokeLater(() -> new InventoryManagerUI(store));
     }
 }
\ No newline at end of file
@@ -1,6 +1,36 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 class Book {
     int bookId;
@@ -9,7 +39,7 @@ class Book {
 
     public Book(int bookId, String title, String author) {
         this.bookId = bookId;
-        this.title = title.toLowerCase();
+        this.title = LibraryCatalog.normalize(title);
         this.author = author;
     }
 
@@ -19,6 +49,1281 @@ class Book {
     }
 }
 
+// Keeps books in title order as they are added, so lookups never need a sort first.
+// Titles map to every book carrying them; exact, prefix and range queries are O(log n + k).
+class LibraryCatalog {
+    private static final double MISS_FILTER_FPP = 0.01;
+
+    private final TreeMap<String, List<Book>> byTitle = new TreeMap<>();
+    private final BookSearchIndex textIndex = new BookSearchIndex();
+    private TitleFilter missFilter = new TitleFilter(1024, MISS_FILTER_FPP);
+    private boolean missFilterEnabled = true;
+    private int size;
+
+    static String normalize(String title) {
+        return title.toLowerCase();
+    }
+
+    public void add(Book book) {
+        List<Book> books = byTitle.computeIfAbsent(book.title, t -> new ArrayList<>(1));
+        books.add(book);
+        if (books.size() == 1) {
+            if (missFilter.isFull()) {
+                // Past its design capacity the false-positive rate climbs, so rebuild at twice the size.
+                missFilter = new TitleFilter(missFilter.capacity() * 2L, MISS_FILTER_FPP);
+                for (String title : byTitle.keySet()) missFilter.add(title);
+            } else {
+                missFilter.add(book.title);
+            }
+        }
+        textIndex.add(book);
+        size++;
+    }
+
+    public void addAll(Book... books) {
+        for (Book book : books) add(book);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Book findByTitle(String title) {
+        String normalized = normalize(title);
+        if (missFilterEnabled && !missFilter.mightContain(normalized)) return null;
+        List<Book> matches = byTitle.get(normalized);
+        return matches == null ? null : matches.get(0);
+    }
+
+    public void setMissFilterEnabled(boolean enabled) {
+        missFilterEnabled = enabled;
+    }
+
+    public TitleFilter missFilter() {
+        return missFilter;
+    }
+
+    public List<Book> findAllByTitle(String title) {
+        List<Book> matches = byTitle.get(normalize(title));
+        return matches == null ? Collections.emptyList() : Collections.unmodifiableList(matches);
+    }
+
+    public List<Book> findByPrefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        return collect(byTitle.tailMap(from, true), from, limit);
+    }
+
+    // Titles t with from <= t < to, in title order.
+    public List<Book> findInRange(String fromInclusive, String toExclusive, int limit) {
+        return collect(byTitle.subMap(normalize(fromInclusive), true, normalize(toExclusive), false), null, limit);
+    }
+
+    // Ranked keyword search over title and author words.
+    public List<Book> search(String query, int k) {
+        return textIndex.search(query, k);
+    }
+
+    public List<Book> allBooks() {
+        return collect(byTitle, null, Integer.MAX_VALUE);
+    }
+
+    private static List<Book> collect(Map<String, List<Book>> titles, String prefix, int limit) {
+        List<Book> result = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, List<Book>> entry : titles.entrySet()) {
+            if (prefix != null && !entry.getKey().startsWith(prefix)) break;
+            for (Book book : entry.getValue()) {
+                if (result.size() == limit) return result;
+                result.add(book);
+            }
+        }
+        return result;
+    }
+}
+
+// Bloom filter over normalized titles: most lookups for titles we don't hold are answered
+// without touching the index. Sized for a capacity and target false-positive rate (bit count
+// rounded up to a power of two, so the real rate is usually lower); k probe
+// positions come from double hashing one 64-bit hash of the title.
+class TitleFilter {
+    private final long[] bits;
+    private final long mask;
+    private final int hashes;
+    private final long capacity;
+    private long count;
+
+    TitleFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the false-positive rate in (0, 1)");
+        }
+        double idealBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long size = Long.highestOneBit(Math.max(64, (long) Math.ceil(idealBits)) - 1) << 1;
+        this.bits = new long[(int) (size >>> 6)];
+        this.mask = size - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public void add(String title) {
+        long hash = hash(title);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        count++;
+    }
+
+    public boolean mightContain(String title) {
+        long hash = hash(title);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            if ((bits[(int) (bit >>> 6)] & 1L << bit) == 0) return false;
+        }
+        return true;
+    }
+
+    public boolean isFull() {
+        return count >= capacity;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    // Expected rate for the titles added so far: (1 - e^(-kn/m))^k.
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashes * (double) count / (mask + 1)), hashes);
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    private static long hash(String title) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < title.length(); i++) h = (h ^ title.charAt(i)) * 0x100000001B3L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+}
+
+// Postings for one term: doc ids as varint deltas with the term frequency folded into the low bit
+// (tf == 1, the common case, costs no extra byte). Every BLOCK postings we remember the byte offset,
+// the block's last doc id, and its largest tf and shortest book, so cursors can skip whole blocks
+// without decoding them and queries can bound what a block could possibly score.
+class PostingList {
+    static final int BLOCK = 128;
+
+    byte[] data = new byte[8];
+    int length;
+    int docFreq;
+    int maxTf;
+    private int lastDoc = -1;
+    int[] blockLastDoc = new int[1];
+    int[] blockOffset = new int[1];
+    int[] blockMaxTf = new int[1];
+    int[] blockMinLength = new int[1];
+
+    void append(int doc, int tf, int docLength) {
+        int block = docFreq / BLOCK;
+        if (docFreq % BLOCK == 0) {
+            if (block == blockOffset.length) {
+                blockOffset = Arrays.copyOf(blockOffset, block * 2);
+                blockLastDoc = Arrays.copyOf(blockLastDoc, block * 2);
+                blockMaxTf = Arrays.copyOf(blockMaxTf, block * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, block * 2);
+            }
+            blockOffset[block] = length;
+            blockMinLength[block] = Integer.MAX_VALUE;
+        }
+        blockMaxTf[block] = Math.max(blockMaxTf[block], tf);
+        blockMinLength[block] = Math.min(blockMinLength[block], docLength);
+        int delta = doc - lastDoc;
+        if (tf == 1) {
+            writeVarInt(delta << 1 | 1);
+        } else {
+            writeVarInt(delta << 1);
+            writeVarInt(tf);
+        }
+        blockLastDoc[block] = doc;
+        lastDoc = doc;
+        docFreq++;
+        maxTf = Math.max(maxTf, tf);
+    }
+
+    int blockCount() {
+        return (docFreq + BLOCK - 1) / BLOCK;
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
+
+class PostingCursor {
+    static final int EXHAUSTED = Integer.MAX_VALUE;
+
+    final PostingList postings;
+    final double idf;
+    final double maxScore;
+    int doc = -1;
+    int tf;
+    private int index;
+    private int position;
+
+    PostingCursor(PostingList postings, double idf, double maxScore) {
+        this.postings = postings;
+        this.idf = idf;
+        this.maxScore = maxScore;
+        next();
+    }
+
+    void next() {
+        if (index == postings.docFreq) {
+            doc = EXHAUSTED;
+            return;
+        }
+        int base = index % PostingList.BLOCK == 0
+                ? (index == 0 ? -1 : postings.blockLastDoc[index / PostingList.BLOCK - 1])
+                : doc;
+        int value = readVarInt();
+        doc = base + (value >>> 1);
+        tf = (value & 1) != 0 ? 1 : readVarInt();
+        index++;
+    }
+
+    // Only meaningful while the cursor sits on a posting (not before the first or past the last).
+    int blockLastDoc() {
+        return postings.blockLastDoc[(index - 1) / PostingList.BLOCK];
+    }
+
+    double blockMaxScore(double averageLength) {
+        int block = (index - 1) / PostingList.BLOCK;
+        int tf = postings.blockMaxTf[block];
+        return idf * tf * (BookSearchIndex.K1 + 1)
+                / (tf + BookSearchIndex.K1 * (1 - BookSearchIndex.B + BookSearchIndex.B * postings.blockMinLength[block] / averageLength));
+    }
+
+    void advanceTo(int target) {
+        if (doc >= target) return;
+        int block = (index - 1) / PostingList.BLOCK;
+        int lastBlock = postings.blockCount() - 1;
+        if (block < lastBlock && postings.blockLastDoc[block] < target) {
+            while (block < lastBlock && postings.blockLastDoc[block] < target) block++;
+            index = block * PostingList.BLOCK;
+            position = postings.blockOffset[block];
+        }
+        do {
+            next();
+        } while (doc < target);
+    }
+
+    private int readVarInt() {
+        byte[] data = postings.data;
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
+
+// BM25 inverted index over title and author words. Books are numbered in insertion order, so
+// postings only ever grow at the tail. Queries use MaxScore: once the top-k heap is full, terms
+// whose combined score bounds can't beat the k-th hit stop driving candidates and are only probed
+// (with block skipping) for docs the other terms already found. Per-block score bounds let the
+// driving terms jump past runs of blocks that together can't beat the k-th hit either.
+class BookSearchIndex {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private final Map<String, PostingList> terms = new HashMap<>();
+    private Book[] books = new Book[16];
+    private int[] lengths = new int[16];
+    private int bookCount;
+    private long totalLength;
+
+    public void add(Book book) {
+        if (bookCount == books.length) {
+            books = Arrays.copyOf(books, bookCount * 2);
+            lengths = Arrays.copyOf(lengths, bookCount * 2);
+        }
+        int doc = bookCount++;
+        books[doc] = book;
+
+        List<String> tokens = tokenize(book.title + " " + book.author);
+        lengths[doc] = tokens.size();
+        totalLength += tokens.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) frequencies.merge(token, 1, Integer::sum);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), t -> new PostingList()).append(doc, entry.getValue(), tokens.size());
+        }
+    }
+
+    public List<Book> search(String query, int k) {
+        if (bookCount == 0 || k <= 0) return Collections.emptyList();
+        double averageLength = (double) totalLength / bookCount;
+
+        List<PostingCursor> cursors = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            PostingList postings = terms.get(token);
+            if (postings == null) continue;
+            double idf = Math.log(1 + (bookCount - postings.docFreq + 0.5) / (postings.docFreq + 0.5));
+            // tf*(k1+1)/(tf + k1*(1-b+b*dl/avgdl)) grows with tf and shrinks with dl, so maxTf at dl = 0 bounds it.
+            double maxScore = idf * postings.maxTf * (K1 + 1) / (postings.maxTf + K1 * (1 - B));
+            cursors.add(new PostingCursor(postings, idf, maxScore));
+        }
+        if (cursors.isEmpty()) return Collections.emptyList();
+        cursors.sort(Comparator.comparingDouble(c -> c.maxScore));
+
+        int n = cursors.size();
+        double[] boundBelow = new double[n];
+        for (int i = 0; i < n; i++) boundBelow[i] = cursors.get(i).maxScore + (i == 0 ? 0 : boundBelow[i - 1]);
+
+        TopHits top = new TopHits(k);
+        int firstEssential = 0;
+        while (firstEssential < n) {
+            int doc = PostingCursor.EXHAUSTED;
+            for (int i = firstEssential; i < n; i++) doc = Math.min(doc, cursors.get(i).doc);
+            if (doc == PostingCursor.EXHAUSTED) break;
+
+            if (top.isFull()) {
+                double bound = firstEssential == 0 ? 0 : boundBelow[firstEssential - 1];
+                int skipTo = PostingCursor.EXHAUSTED;
+                for (int i = firstEssential; i < n; i++) {
+                    PostingCursor cursor = cursors.get(i);
+                    if (cursor.doc == PostingCursor.EXHAUSTED) continue;
+                    bound += cursor.blockMaxScore(averageLength);
+                    skipTo = Math.min(skipTo, cursor.blockLastDoc() + 1);
+                }
+                if (bound <= top.threshold()) {
+                    for (int i = firstEssential; i < n; i++) cursors.get(i).advanceTo(skipTo);
+                    continue;
+                }
+            }
+
+            double lengthNorm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double score = 0;
+            for (int i = firstEssential; i < n; i++) {
+                PostingCursor cursor = cursors.get(i);
+                if (cursor.doc == doc) {
+                    score += termScore(cursor, lengthNorm);
+                    cursor.next();
+                }
+            }
+            for (int i = firstEssential - 1; i >= 0 && score + boundBelow[i] > top.threshold(); i--) {
+                PostingCursor cursor = cursors.get(i);
+                cursor.advanceTo(doc);
+                if (cursor.doc == doc) score += termScore(cursor, lengthNorm);
+            }
+            if (top.offer(doc, score)) {
+                while (firstEssential < n && boundBelow[firstEssential] <= top.threshold()) firstEssential++;
+            }
+        }
+
+        List<Book> ranked = new ArrayList<>(k);
+        for (int doc : top.docsByScore()) ranked.add(books[doc]);
+        return ranked;
+    }
+
+    private static double termScore(PostingCursor cursor, double lengthNorm) {
+        return cursor.idf * cursor.tf * (K1 + 1) / (cursor.tf + lengthNorm);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Min-heap of the best k (doc, score) pairs; ties keep the earlier doc.
+    private static final class TopHits {
+        final int[] docs;
+        final double[] scores;
+        int size;
+
+        TopHits(int k) {
+            docs = new int[k];
+            scores = new double[k];
+        }
+
+        boolean isFull() {
+            return size == docs.length;
+        }
+
+        double threshold() {
+            return isFull() ? scores[0] : 0;
+        }
+
+        boolean offer(int doc, double score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+                return size == docs.length;
+            }
+            if (score <= scores[0]) return false;
+            docs[0] = doc;
+            scores[0] = score;
+            siftDown(0);
+            return true;
+        }
+
+        // Drains the heap; the best hit comes first.
+        int[] docsByScore() {
+            int[] ordered = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ordered[i] = docs[0];
+                swap(0, --size);
+                siftDown(0);
+            }
+            return ordered;
+        }
+
+        private boolean less(int a, int b) {
+            return scores[a] < scores[b] || scores[a] == scores[b] && docs[a] > docs[b];
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && less(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i, left = 2 * i + 1, right = left + 1;
+                if (left < size && less(left, smallest)) smallest = left;
+                if (right < size && less(right, smallest)) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
+
+// Read-only catalog file served straight from memory-mapped pages, so a new process can answer
+// lookups without reading the catalog onto the heap.
+//
+// Layout (big-endian, every region page-aligned):
+//   page 0    magic, key width, book count, level count, then (offset, entries) for each level
+//   levels    fixed-width entries of KEY_WIDTH title bytes (UTF-8, zero-padded/truncated) + a long.
+//             Level 0 has one entry per book in title byte order and the long is the record offset;
+//             entry j of level L > 0 repeats the first key of page j of level L - 1. The top level
+//             fits in one page, so a lookup reads one page per level plus the record.
+//   records   int bookId, then title and author as unsigned-short length + UTF-8 bytes. Records never
+//             straddle a SEGMENT boundary, so each one can be read from a single mapping.
+class MappedCatalog implements AutoCloseable {
+    static final int MAGIC = 0x4C424331;
+    static final int PAGE = 4096;
+    static final int KEY_WIDTH = 24;
+    static final int ENTRY = KEY_WIDTH + Long.BYTES;
+    static final int PER_PAGE = PAGE / ENTRY;
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private final long[] levelOffset;
+    private final long[] levelEntries;
+
+    private MappedCatalog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT - 1) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT, size - start));
+        }
+        MappedByteBuffer header = segments[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != KEY_WIDTH) {
+            throw new IOException("Not a library catalog file");
+        }
+        count = header.getLong(8);
+        int levels = header.getInt(16);
+        levelOffset = new long[levels];
+        levelEntries = new long[levels];
+        for (int level = 0; level < levels; level++) {
+            levelOffset[level] = header.getLong(20 + level * 16);
+            levelEntries[level] = header.getLong(28 + level * 16);
+        }
+    }
+
+    public static MappedCatalog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedCatalog(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void write(Path file, Collection<Book> books) throws IOException {
+        byte[][] titles = new byte[books.size()][];
+        Book[] sorted = books.toArray(new Book[0]);
+        for (int i = 0; i < sorted.length; i++) titles[i] = sorted[i].title.getBytes(StandardCharsets.UTF_8);
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(titles[a], titles[b]));
+
+        List<Long> entries = new ArrayList<>();
+        for (long n = sorted.length; ; n = (n + PER_PAGE - 1) / PER_PAGE) {
+            entries.add(n);
+            if (n <= PER_PAGE) break;
+        }
+        long[] offsets = new long[entries.size()];
+        long position = PAGE;
+        for (int level = 0; level < offsets.length; level++) {
+            offsets[level] = position;
+            position += (entries.get(level) + PER_PAGE - 1) / PER_PAGE * PAGE;
+        }
+        if (20 + offsets.length * 16 > PAGE) throw new IllegalArgumentException("Too many books for one catalog file");
+
+        long[] recordOffset = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            Book book = sorted[order[i]];
+            int size = recordSize(titles[order[i]], book.author);
+            if ((position >>> SEGMENT_SHIFT) != ((position + size - 1) >>> SEGMENT_SHIFT)) {
+                position = (position >>> SEGMENT_SHIFT) + 1 << SEGMENT_SHIFT;
+            }
+            recordOffset[i] = position;
+            position += size;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            long written = 0;
+            out.writeInt(MAGIC);
+            out.writeInt(KEY_WIDTH);
+            out.writeLong(sorted.length);
+            out.writeInt(offsets.length);
+            written += 20;
+            for (int level = 0; level < offsets.length; level++) {
+                out.writeLong(offsets[level]);
+                out.writeLong(entries.get(level));
+                written += 16;
+            }
+
+            long stride = 1;
+            for (int level = 0; level < offsets.length; level++, stride *= PER_PAGE) {
+                written = pad(out, written, offsets[level]);
+                for (long j = 0; j < entries.get(level); j++) {
+                    if (j > 0 && j % PER_PAGE == 0) written = pad(out, written, offsets[level] + j / PER_PAGE * PAGE);
+                    int first = (int) (j * stride);
+                    byte[] title = titles[order[first]];
+                    out.write(title, 0, Math.min(title.length, KEY_WIDTH));
+                    for (int k = title.length; k < KEY_WIDTH; k++) out.write(0);
+                    out.writeLong(level == 0 ? recordOffset[first] : 0);
+                    written += ENTRY;
+                }
+            }
+
+            for (int i = 0; i < sorted.length; i++) {
+                written = pad(out, written, recordOffset[i]);
+                Book book = sorted[order[i]];
+                byte[] title = titles[order[i]];
+                byte[] author = book.author.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(book.bookId);
+                out.writeShort(title.length);
+                out.write(title);
+                out.writeShort(author.length);
+                out.write(author);
+                written += recordSize(title, book.author);
+            }
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public Book findByTitle(String title) {
+        byte[] target = LibraryCatalog.normalize(title).getBytes(StandardCharsets.UTF_8);
+        for (long i = lowerBound(target); i < count && keyMatches(i, target, Math.min(target.length, KEY_WIDTH)); i++) {
+            long record = leafValue(i);
+            int cmp = compareTitle(record, target);
+            if (cmp == 0) return readBook(record);
+            if (cmp > 0) break;
+        }
+        return null;
+    }
+
+    // Books whose title starts with prefix, in title order.
+    public List<Book> findByPrefix(String prefix, int limit) {
+        byte[] target = LibraryCatalog.normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        List<Book> result = new ArrayList<>(Math.min(limit, 16));
+        for (long i = lowerBound(target); i < count && result.size() < limit
+                && keyMatches(i, target, Math.min(target.length, KEY_WIDTH)); i++) {
+            long record = leafValue(i);
+            if (target.length <= KEY_WIDTH || titleStartsWith(record, target)) {
+                result.add(readBook(record));
+            } else if (compareTitle(record, target) > 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Index of the first leaf whose key is >= the (truncated) target; walks one page per level.
+    private long lowerBound(byte[] target) {
+        long page = 0;
+        for (int level = levelOffset.length - 1; level > 0; level--) {
+            long start = page * PER_PAGE;
+            long end = Math.min(start + PER_PAGE, levelEntries[level]);
+            long child = start;
+            for (long low = start, high = end - 1; low <= high; ) {
+                long mid = (low + high) >>> 1;
+                if (compareKey(entryOffset(level, mid), target) < 0) {
+                    child = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            page = child;
+        }
+        long low = page * PER_PAGE, high = Math.min(low + PER_PAGE, count);
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (compareKey(entryOffset(0, mid), target) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long entryOffset(int level, long index) {
+        return levelOffset[level] + index / PER_PAGE * PAGE + index % PER_PAGE * ENTRY;
+    }
+
+    private long leafValue(long index) {
+        long offset = entryOffset(0, index) + KEY_WIDTH;
+        return segment(offset).getLong(local(offset));
+    }
+
+    private int compareKey(long offset, byte[] target) {
+        MappedByteBuffer buffer = segment(offset);
+        int base = local(offset);
+        for (int i = 0; i < KEY_WIDTH; i++) {
+            int a = buffer.get(base + i) & 0xFF;
+            int b = i < target.length ? target[i] & 0xFF : 0;
+            if (a != b) return a - b;
+        }
+        return 0;
+    }
+
+    private boolean keyMatches(long index, byte[] target, int length) {
+        long offset = entryOffset(0, index);
+        MappedByteBuffer buffer = segment(offset);
+        int base = local(offset);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(base + i) != target[i]) return false;
+        }
+        return true;
+    }
+
+    private int compareTitle(long record, byte[] target) {
+        MappedByteBuffer buffer = segment(record);
+        int base = local(record) + Integer.BYTES;
+        int length = Short.toUnsignedInt(buffer.getShort(base));
+        for (int i = 0; i < Math.min(length, target.length); i++) {
+            int cmp = (buffer.get(base + 2 + i) & 0xFF) - (target[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return length - target.length;
+    }
+
+    private boolean titleStartsWith(long record, byte[] prefix) {
+        MappedByteBuffer buffer = segment(record);
+        int base = local(record) + Integer.BYTES;
+        if (Short.toUnsignedInt(buffer.getShort(base)) < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(base + 2 + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private Book readBook(long record) {
+        MappedByteBuffer buffer = segment(record);
+        int position = local(record);
+        int bookId = buffer.getInt(position);
+        position += Integer.BYTES;
+        byte[] title = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        buffer.get(position + 2, title);
+        position += 2 + title.length;
+        byte[] author = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        buffer.get(position + 2, author);
+        return new Book(bookId, new String(title, StandardCharsets.UTF_8), new String(author, StandardCharsets.UTF_8));
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)];
+    }
+
+    private static int local(long offset) {
+        return (int) (offset & (SEGMENT - 1));
+    }
+
+    private static int recordSize(byte[] title, String author) {
+        return Integer.BYTES + 2 + title.length + 2 + author.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static long pad(DataOutputStream out, long written, long target) throws IOException {
+        for (; written < target; written++) out.write(0);
+        return written;
+    }
+}
+
+// Compact storage mode: titles and authors live as UTF-8 bytes in one shared arena (ASCII costs a
+// byte per char, as Latin-1 would), books are rows in parallel primitive arrays, and each distinct
+// author is stored once. Title order is kept in an index array compared byte-by-byte; books added
+// since the last query are sorted and merged in on the next lookup rather than on every insert.
+class CompactBookStore {
+    private byte[] arena = new byte[1 << 16];
+    private int arenaLength;
+
+    private int[] bookIds = new int[16];
+    private int[] titleOffset = new int[16];
+    private char[] titleLength = new char[16];
+    private int[] authorOf = new int[16];
+    private int size;
+
+    private int[] authorOffset = new int[16];
+    private char[] authorLength = new char[16];
+    private int authorCount;
+    private int[] authorTable = new int[32]; // open addressing, author id + 1, 0 = empty
+
+    private int[] order = new int[16];
+    private int sortedCount;
+
+    public void add(Book book) {
+        add(book.bookId, book.title, book.author);
+    }
+
+    public void add(int bookId, String title, String author) {
+        if (size == bookIds.length) {
+            int capacity = size * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            titleOffset = Arrays.copyOf(titleOffset, capacity);
+            titleLength = Arrays.copyOf(titleLength, capacity);
+            authorOf = Arrays.copyOf(authorOf, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+        byte[] titleBytes = LibraryCatalog.normalize(title).getBytes(StandardCharsets.UTF_8);
+        bookIds[size] = bookId;
+        titleOffset[size] = append(titleBytes);
+        titleLength[size] = checkedLength(titleBytes);
+        authorOf[size] = internAuthor(author.getBytes(StandardCharsets.UTF_8));
+        order[size] = size;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int authorCount() {
+        return authorCount;
+    }
+
+    public Book get(int index) {
+        int author = authorOf[index];
+        return new Book(bookIds[index],
+                new String(arena, titleOffset[index], titleLength[index], StandardCharsets.UTF_8),
+                new String(arena, authorOffset[author], authorLength[author], StandardCharsets.UTF_8));
+    }
+
+    public Book findByTitle(String title) {
+        byte[] target = LibraryCatalog.normalize(title).getBytes(StandardCharsets.UTF_8);
+        ensureSorted();
+        int position = lowerBound(target);
+        return position < size && compareTitle(order[position], target) == 0 ? get(order[position]) : null;
+    }
+
+    public List<Book> findByPrefix(String prefix, int limit) {
+        byte[] target = LibraryCatalog.normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        ensureSorted();
+        List<Book> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(target); i < size && result.size() < limit && titleStartsWith(order[i], target); i++) {
+            result.add(get(order[i]));
+        }
+        return result;
+    }
+
+    // Bytes held by the arena and the per-book and per-author arrays, excluding spare capacity.
+    public long footprintBytes() {
+        return arenaLength + (long) size * (4 + 4 + 2 + 4 + 4) + (long) authorCount * (4 + 2) + (long) authorTable.length * 4;
+    }
+
+    private int append(byte[] bytes) {
+        if (arenaLength + bytes.length > arena.length) {
+            long capacity = Math.max((long) arena.length * 2, (long) arenaLength + bytes.length);
+            if (capacity > Integer.MAX_VALUE - 8) throw new IllegalStateException("String arena is full (2 GB)");
+            arena = Arrays.copyOf(arena, (int) capacity);
+        }
+        System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+        int offset = arenaLength;
+        arenaLength += bytes.length;
+        return offset;
+    }
+
+    private int internAuthor(byte[] author) {
+        int mask = authorTable.length - 1;
+        for (int slot = Arrays.hashCode(author) & mask; ; slot = (slot + 1) & mask) {
+            int entry = authorTable[slot];
+            if (entry == 0) break;
+            int id = entry - 1;
+            if (Arrays.equals(arena, authorOffset[id], authorOffset[id] + authorLength[id], author, 0, author.length)) return id;
+        }
+
+        if (authorCount == authorOffset.length) {
+            authorOffset = Arrays.copyOf(authorOffset, authorCount * 2);
+            authorLength = Arrays.copyOf(authorLength, authorCount * 2);
+        }
+        int id = authorCount++;
+        authorOffset[id] = append(author);
+        authorLength[id] = checkedLength(author);
+        if (authorCount * 2 > authorTable.length) {
+            rehashAuthors(authorTable.length * 2);
+        } else {
+            insertAuthor(id);
+        }
+        return id;
+    }
+
+    private void rehashAuthors(int capacity) {
+        authorTable = new int[capacity];
+        for (int id = 0; id < authorCount; id++) insertAuthor(id);
+    }
+
+    private void insertAuthor(int id) {
+        int mask = authorTable.length - 1;
+        int hash = 1;
+        for (int i = authorOffset[id], end = i + authorLength[id]; i < end; i++) hash = 31 * hash + arena[i];
+        int slot = hash & mask;
+        while (authorTable[slot] != 0) slot = (slot + 1) & mask;
+        authorTable[slot] = id + 1;
+    }
+
+    private void ensureSorted() {
+        if (sortedCount == size) return;
+        int[] scratch = new int[size];
+        mergeSort(order, scratch, sortedCount, size);
+        System.arraycopy(order, 0, scratch, 0, size);
+        merge(scratch, order, 0, sortedCount, size);
+        sortedCount = size;
+    }
+
+    private void mergeSort(int[] rows, int[] scratch, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i], j = i - 1;
+                for (; j >= from && compareTitles(rows[j], row) > 0; j--) rows[j + 1] = rows[j];
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, scratch, from, middle);
+        mergeSort(rows, scratch, middle, to);
+        if (compareTitles(rows[middle - 1], rows[middle]) <= 0) return;
+        System.arraycopy(rows, from, scratch, from, to - from);
+        merge(scratch, rows, from, middle, to);
+    }
+
+    // Stable merge of source[from, middle) and source[middle, to) into target[from, to).
+    private void merge(int[] source, int[] target, int from, int middle, int to) {
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || left < middle && compareTitles(source[left], source[right]) <= 0) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    private int lowerBound(byte[] target) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareTitle(order[mid], target) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int compareTitles(int a, int b) {
+        return Arrays.compareUnsigned(arena, titleOffset[a], titleOffset[a] + titleLength[a],
+                arena, titleOffset[b], titleOffset[b] + titleLength[b]);
+    }
+
+    private int compareTitle(int row, byte[] target) {
+        return Arrays.compareUnsigned(arena, titleOffset[row], titleOffset[row] + titleLength[row], target, 0, target.length);
+    }
+
+    private boolean titleStartsWith(int row, byte[] prefix) {
+        return titleLength[row] >= prefix.length
+                && Arrays.equals(arena, titleOffset[row], titleOffset[row] + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static char checkedLength(byte[] bytes) {
+        if (bytes.length > Character.MAX_VALUE) throw new IllegalArgumentException("Title or author longer than 65535 bytes");
+        return (char) bytes.length;
+    }
+}
+
+// Streams titles (one per line) through a resolver and writes one tab-separated result line per
+// title, in input order: "query, bookId, title, author" for a hit or "query, -" for a miss. With
+// more than one thread, chunks of lines are resolved concurrently with a bounded number in flight.
+class BatchLookup {
+    private static final int CHUNK_LINES = 4096;
+
+    long lookups;
+    long found;
+    long nanos;
+
+    public static BatchLookup run(Function<String, Book> resolver, BufferedReader in, Writer out, int threads)
+            throws IOException {
+        BatchLookup stats = new BatchLookup();
+        long start = System.nanoTime();
+        if (threads <= 1) {
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_LINES) {
+                    stats.write(resolve(resolver, chunk), chunk, out);
+                    chunk.clear();
+                }
+            }
+            stats.write(resolve(resolver, chunk), chunk, out);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            ArrayDeque<List<String>> chunks = new ArrayDeque<>();
+            ArrayDeque<Future<Book[]>> results = new ArrayDeque<>();
+            try {
+                List<String> chunk = new ArrayList<>(CHUNK_LINES);
+                for (String line = in.readLine(); ; line = in.readLine()) {
+                    if (line != null) chunk.add(line);
+                    if (chunk.size() == CHUNK_LINES || line == null && !chunk.isEmpty()) {
+                        List<String> lines = chunk;
+                        chunks.add(lines);
+                        results.add(pool.submit(() -> resolve(resolver, lines)));
+                        chunk = new ArrayList<>(CHUNK_LINES);
+                        if (results.size() > threads * 2) stats.write(await(results.poll()), chunks.poll(), out);
+                    }
+                    if (line == null) break;
+                }
+                while (!results.isEmpty()) stats.write(await(results.poll()), chunks.poll(), out);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        out.flush();
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    public double lookupsPerSecond() {
+        return lookups * 1e9 / Math.max(1, nanos);
+    }
+
+    private static Book[] resolve(Function<String, Book> resolver, List<String> lines) {
+        Book[] books = new Book[lines.size()];
+        for (int i = 0; i < books.length; i++) {
+            String title = lines.get(i).trim();
+            if (!title.isEmpty()) books[i] = resolver.apply(title);
+        }
+        return books;
+    }
+
+    private static Book[] await(Future<Book[]> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving titles", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Title lookup failed", e.getCause());
+        }
+    }
+
+    private void write(Book[] books, List<String> lines, Writer out) throws IOException {
+        for (int i = 0; i < books.length; i++) {
+            String query = lines.get(i).trim();
+            if (query.isEmpty()) continue;
+            lookups++;
+            out.write(query);
+            Book book = books[i];
+            if (book == null) {
+                out.write("\t-\n");
+            } else {
+                found++;
+                out.write("\t" + book.bookId + "\t" + book.title + "\t" + book.author + "\n");
+            }
+        }
+    }
+}
+
+class LibraryBenchmark {
+    private static final String[] SYLLABLES = {
+            "al", "be", "cor", "da", "en", "fir", "go", "har", "in", "jo", "ka", "lin",
+            "mor", "nu", "or", "pa", "qui", "ros", "sa", "tor", "ul", "ve", "wil", "xe", "yo", "zan"
+    };
+
+    static String randomWord(SplittableRandom random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 1 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        return word.toString();
+    }
+
+    static String randomTitle(SplittableRandom random) {
+        StringBuilder title = new StringBuilder(randomWord(random));
+        int words = 1 + random.nextInt(4);
+        for (int i = 0; i < words; i++) title.append(' ').append(randomWord(random));
+        return title.toString();
+    }
+
+    // About ten books per author, as in a real catalog. Each book gets its own author String, as it
+    // would when parsed from a file, so author deduplication has something to do.
+    static Book[] randomBooks(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] authors = new String[Math.max(1, count / 10)];
+        for (int i = 0; i < authors.length; i++) authors[i] = randomWord(random) + " " + randomWord(random);
+        Book[] books = new Book[count];
+        for (int i = 0; i < count; i++) {
+            books[i] = new Book(i, randomTitle(random), new String(authors[random.nextInt(authors.length)].toCharArray()));
+        }
+        return books;
+    }
+
+    public static void run(int bookCount) {
+        System.out.printf("=== Library benchmark: %,d books ===%n", bookCount);
+        long heapBefore = usedHeap();
+        Book[] books = randomBooks(bookCount, 42);
+        long bookHeap = usedHeap() - heapBefore;
+        String[] queries = new String[10_000];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextBoolean() ? books[random.nextInt(bookCount)].title : randomTitle(random);
+        }
+
+        long start = System.nanoTime();
+        LibraryCatalog catalog = new LibraryCatalog();
+        catalog.addAll(books);
+        report("Catalog build", bookCount, System.nanoTime() - start);
+
+        // The old path: every lookup sorts the array first, because nothing keeps it sorted.
+        int sortedQueries = Math.max(1, Math.min(queries.length, 5_000_000 / bookCount));
+        long hits = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < sortedQueries; i++) {
+            Book[] copy = books.clone();
+            Arrays.sort(copy, Comparator.comparing(b -> b.title));
+            if (LibraryManagementSystem.binarySearch(copy, queries[i]) != null) hits++;
+        }
+        report("Sort + binarySearch", sortedQueries, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (String query : queries) {
+            if (catalog.findByTitle(query) != null) hits++;
+        }
+        report("Catalog exact", queries.length, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (String query : queries) {
+            hits += catalog.findByPrefix(query.substring(0, Math.min(3, query.length())), 10).size();
+        }
+        report("Catalog prefix (k=10)", queries.length, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (String query : queries) {
+            hits += catalog.findInRange(query, query + "m", 10).size();
+        }
+        report("Catalog range (k=10)", queries.length, System.nanoTime() - start);
+        System.out.println("Hits: " + hits);
+
+        runKeywordSearch(catalog, books);
+        runMappedCatalog(catalog, books, queries);
+        runCompactStore(catalog, books, queries, bookHeap);
+        runMissFilter(catalog, books);
+    }
+
+    // 95% of lookups are for titles we don't hold.
+    private static void runMissFilter(LibraryCatalog catalog, Book[] books) {
+        SplittableRandom random = new SplittableRandom(13);
+        String[] queries = new String[200_000];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(100) < 5 ? books[random.nextInt(books.length)].title : randomTitle(random) + " " + randomWord(random);
+        }
+
+        long misses = 0, falsePositives = 0;
+        for (String query : queries) {
+            if (catalog.findByTitle(query) == null) {
+                misses++;
+                if (catalog.missFilter().mightContain(query)) falsePositives++;
+            }
+        }
+        TitleFilter filter = catalog.missFilter();
+        System.out.printf("Miss filter: %,d KB, expected FPP %.3f%%, measured %.3f%% (%,d of %,d misses)%n",
+                filter.sizeInBytes() / 1024, filter.expectedFalsePositiveRate() * 100,
+                100.0 * falsePositives / misses, falsePositives, misses);
+
+        for (int round = 0; round < 2; round++) {
+            boolean timed = round == 1;
+            catalog.setMissFilterEnabled(false);
+            long start = System.nanoTime();
+            long found = 0;
+            for (String query : queries) if (catalog.findByTitle(query) != null) found++;
+            if (timed) report("Miss-heavy, no filter", queries.length, System.nanoTime() - start);
+
+            catalog.setMissFilterEnabled(true);
+            start = System.nanoTime();
+            for (String query : queries) if (catalog.findByTitle(query) != null) found--;
+            if (timed) report("Miss-heavy, filter", queries.length, System.nanoTime() - start);
+            if (found != 0) throw new IllegalStateException("Miss filter changed lookup results");
+        }
+    }
+
+    private static void runCompactStore(LibraryCatalog catalog, Book[] books, String[] queries, long bookHeap) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        CompactBookStore store = new CompactBookStore();
+        for (Book book : books) store.add(book);
+        store.findByTitle(""); // sorts the title index
+        long buildNanos = System.nanoTime() - start;
+        long storeHeap = usedHeap() - heapBefore;
+        report("Compact store build", books.length, buildNanos);
+        System.out.printf("Book[] heap: %.1f B/book; compact store heap: %.1f B/book (arrays %.1f B/book, %,d distinct authors)%n",
+                (double) bookHeap / books.length, (double) storeHeap / books.length,
+                (double) store.footprintBytes() / books.length, store.authorCount());
+
+        long mismatches = 0;
+        start = System.nanoTime();
+        for (String query : queries) {
+            Book found = store.findByTitle(query);
+            if ((found == null) != (catalog.findByTitle(query) == null)) mismatches++;
+        }
+        report("Compact exact", queries.length, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (String query : queries) {
+            String prefix = query.substring(0, Math.min(5, query.length()));
+            if (store.findByPrefix(prefix, 10).size() != catalog.findByPrefix(prefix, 10).size()) mismatches++;
+        }
+        report("Compact prefix (k=10)", queries.length, System.nanoTime() - start);
+        System.out.println("Compact store mismatches vs catalog: " + mismatches);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void runMappedCatalog(LibraryCatalog catalog, Book[] books, String[] queries) {
+        try {
+            Path file = Files.createTempFile("library-catalog", ".bin");
+            long start = System.nanoTime();
+            MappedCatalog.write(file, Arrays.asList(books));
+            report("Mapped catalog write", books.length, System.nanoTime() - start);
+            System.out.printf("Mapped catalog file: %,d bytes (%.1f B/book)%n", Files.size(file), (double) Files.size(file) / books.length);
+
+            start = System.nanoTime();
+            try (MappedCatalog mapped = MappedCatalog.open(file)) {
+                System.out.printf("Mapped catalog open: %.2f ms for %,d books%n", (System.nanoTime() - start) / 1e6, mapped.size());
+
+                long mismatches = 0;
+                start = System.nanoTime();
+                for (String query : queries) {
+                    Book found = mapped.findByTitle(query);
+                    if ((found == null) != (catalog.findByTitle(query) == null)) mismatches++;
+                }
+                report("Mapped exact", queries.length, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (String query : queries) {
+                    String prefix = query.substring(0, Math.min(5, query.length()));
+                    if (mapped.findByPrefix(prefix, 10).size() != catalog.findByPrefix(prefix, 10).size()) mismatches++;
+                }
+                report("Mapped prefix (k=10)", queries.length, System.nanoTime() - start);
+                System.out.println("Mapped catalog mismatches vs in-heap catalog: " + mismatches);
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void runKeywordSearch(LibraryCatalog catalog, Book[] books) {
+        SplittableRandom random = new SplittableRandom(11);
+        String[] queries = new String[2_000];
+        for (int i = 0; i < queries.length; i++) {
+            List<String> words = BookSearchIndex.tokenize(books[random.nextInt(books.length)].title);
+            StringBuilder query = new StringBuilder(words.get(random.nextInt(words.size())));
+            int extra = random.nextInt(3);
+            for (int j = 0; j < extra; j++) query.append(' ').append(randomWord(random));
+            queries[i] = query.toString();
+        }
+
+        for (String query : queries) catalog.search(query, 10); // warm up before timing single queries
+        long[] latencies = new long[queries.length];
+        long hits = 0;
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            hits += catalog.search(queries[i], 10).size();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        long total = 0;
+        for (long latency : latencies) total += latency;
+        report("Keyword search (k=10)", queries.length, total);
+        System.out.printf("Keyword latency p50 %.3f ms, p99 %.3f ms, max %.3f ms (hits %d)%n",
+                latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6,
+                latencies[latencies.length - 1] / 1e6, hits);
+    }
+
+    static void report(String label, int ops, long nanos) {
+        System.out.printf("%-24s %,10d ops in %8.2f ms (%,.0f ns/op)%n", label, ops, nanos / 1e6, (double) nanos / ops);
+    }
+}
+
 public class LibraryManagementSystem {
 
     public static Book linearSearch(Book[] books, String targetTitle) {
@@ -53,22 +1358,94 @@ public class LibraryManagementSystem {
         }
     }
 
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
+    private static void searchMappedCatalog(Path file) throws IOException {
+        try (MappedCatalog catalog = MappedCatalog.open(file); Scanner sc = new Scanner(System.in)) {
+            System.out.printf("Catalog %s: %,d books%n", file, catalog.size());
+            System.out.print("Enter the book title to search: ");
+            String title = sc.nextLine();
+            Book result = catalog.findByTitle(title);
+            if (result != null) {
+                System.out.println("✅ Book Found:\n" + result);
+            } else {
+                System.out.println("❌ Book not found with title: " + title);
+            }
+        }
+    }
+
+    // --batch [--catalog <file>] [--input <file>] [--threads <n>]; without --catalog the sample books are used.
+    private static void runBatch(String[] args) throws IOException {
+        Path catalogFile = null, input = null;
+        int threads = 1;
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + args[i]);
+            switch (args[i]) {
+                case "--catalog": catalogFile = Path.of(args[++i]); break;
+                case "--input": input = Path.of(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown batch option: " + args[i]);
+            }
+        }
+
+        MappedCatalog mapped = catalogFile == null ? null : MappedCatalog.open(catalogFile);
+        LibraryCatalog sample = new LibraryCatalog();
+        if (mapped == null) sample.addAll(sampleBooks());
+        Function<String, Book> resolver = mapped != null ? mapped::findByTitle : sample::findByTitle;
+
+        try (BufferedReader in = input != null
+                ? Files.newBufferedReader(input, StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            BatchLookup stats = BatchLookup.run(resolver, in, out, threads);
+            System.err.printf("Resolved %,d titles (%,d found) in %.2f s on %d thread(s): %,.0f lookups/sec%n",
+                    stats.lookups, stats.found, stats.nanos / 1e9, threads, stats.lookupsPerSecond());
+        } finally {
+            if (mapped != null) mapped.close();
+        }
+    }
 
-        Book[] books = {
+    private static Book[] sampleBooks() {
+        return new Book[] {
                 new Book(101, "Data Structures", "Mark Allen"),
                 new Book(102, "Java Programming", "James Gosling"),
                 new Book(103, "Clean Code", "Robert C. Martin"),
                 new Book(104, "Algorithms", "Thomas Cormen"),
                 new Book(105, "Ends With Us", "Colleen Hoover")
         };
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--benchmark")) {
+            LibraryBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--build-catalog")) {
+            int count = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+            MappedCatalog.write(Path.of(args[1]), Arrays.asList(LibraryBenchmark.randomBooks(count, 42)));
+            System.out.printf("Wrote %,d books to %s%n", count, args[1]);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--catalog")) {
+            searchMappedCatalog(Path.of(args[1]));
+            return;
+        }
+
+        Scanner sc = new Scanner(System.in);
+
+        Book[] books = sampleBooks();
+        LibraryCatalog catalog = new LibraryCatalog();
+        catalog.addAll(books);
 
         System.out.println("===== Library Management System =====");
         System.out.println("1. Search Book by Title (Linear Search)");
         System.out.println("2. Search Book by Title (Binary Search)");
         System.out.println("3. View All Books");
-        System.out.print("Enter your choice (1-3): ");
+        System.out.println("4. Search Books by Title Prefix");
+        System.out.println("5. Search Books by Keywords (title or author)");
+        System.out.print("Enter your choice (1-5): ");
         int choice = sc.nextInt();
         sc.nextLine();
 
@@ -85,10 +1462,9 @@ public class LibraryManagementSystem {
                 break;
 
             case 2:
-                Arrays.sort(books, Comparator.comparing(b -> b.title));
                 System.out.print("Enter the book title to search: ");
                 String title2 = sc.nextLine();
-                Book result2 = binarySearch(books, title2);
+                Book result2 = catalog.findByTitle(title2);
                 if (result2 != null) {
                     System.out.println("✅ Book Found:\n" + result2);
                 } else {
@@ -97,11 +1473,35 @@ public class LibraryManagementSystem {
                 break;
 
             case 3:
-                viewAllBooks(books);
+                viewAllBooks(catalog.allBooks().toArray(new Book[0]));
+                break;
+
+            case 4:
+                System.out.print("Enter the title prefix to search: ");
+                String prefix = sc.nextLine();
+                List<Book> matches = catalog.findByPrefix(prefix, 20);
+                if (matches.isEmpty()) {
+                    System.out.println("❌ No books found starting with: " + prefix);
+                } else {
+                    System.out.println("✅ Books Found:");
+                    for (Book book : matches) System.out.println(book);
+                }
+                break;
+
+            case 5:
+                System.out.print("Enter keywords to search: ");
+                String keywords = sc.nextLine();
+                List<Book> ranked = catalog.search(keywords, 10);
+                if (ranked.isEmpty()) {
+                    System.out.println("❌ No books found for: " + keywords);
+                } else {
+                    System.out.println("✅ Best Matches:");
+                    for (Book book : ranked) System.out.println(book);
+                }
                 break;
 
             default:
-                System.out.println("⚠️ Invalid choice. Please enter 1-3.");
+                System.out.println("⚠️ Invalid choice. Please enter 1-5.");
         }
 
         sc.close();
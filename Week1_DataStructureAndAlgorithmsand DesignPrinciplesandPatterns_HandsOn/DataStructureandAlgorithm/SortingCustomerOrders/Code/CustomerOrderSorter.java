@@ -1,4 +1,29 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 class Order {
     private String orderId;
@@ -11,6 +36,14 @@ class Order {
         this.totalPrice = totalPrice;
     }
 
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
     public double getTotalPrice() {
         return totalPrice;
     }
@@ -20,6 +53,1213 @@ class Order {
     }
 }
 
+// Introsort on total price: ninther/median-of-three pivots, three-way partitioning so runs of
+// equal totals are settled in one pass, insertion sort below a cutoff, and a heapsort fallback
+// once recursion gets deeper than 2 log2 n. Always recurses into the smaller side, so the stack
+// stays O(log n) even on adversarial input. Feeds that arrive already in (or exactly against)
+// price order are detected with one linear scan and finished without partitioning.
+class OrderSort {
+    static final int INSERTION_CUTOFF = 24;
+    static final int NINTHER_THRESHOLD = 128;
+
+    public static void sort(Order[] orders) {
+        sort(orders, 0, orders.length);
+    }
+
+    // Sorts orders[from, to) by total price, ascending.
+    public static void sort(Order[] orders, int from, int to) {
+        if (from < 0 || to > orders.length || from > to) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ") for " + orders.length + " orders");
+        }
+        if (isPresorted(orders, from, to)) return;
+        introSort(orders, from, to, 2 * (31 - Integer.numberOfLeadingZeros(Math.max(1, to - from))));
+    }
+
+    // True if the range is now ascending: it already was, or was descending and has been reversed.
+    private static boolean isPresorted(Order[] a, int from, int to) {
+        int ascending = from + 1;
+        while (ascending < to && Double.compare(a[ascending - 1].getTotalPrice(), a[ascending].getTotalPrice()) <= 0) ascending++;
+        if (ascending >= to) return true;
+
+        int descending = from + 1;
+        while (descending < to && Double.compare(a[descending - 1].getTotalPrice(), a[descending].getTotalPrice()) >= 0) descending++;
+        if (descending < to) return false;
+        for (int i = from, j = to - 1; i < j; i++, j--) swap(a, i, j);
+        return true;
+    }
+
+    private static void introSort(Order[] a, int from, int to, int depth) {
+        while (to - from > INSERTION_CUTOFF) {
+            if (depth-- == 0) {
+                heapSort(a, from, to);
+                return;
+            }
+            double pivot = a[pivotIndex(a, from, to)].getTotalPrice();
+
+            // Dijkstra three-way partition: [from, lt) < pivot, [lt, gt] == pivot, (gt, to) > pivot.
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                int cmp = Double.compare(a[i].getTotalPrice(), pivot);
+                if (cmp < 0) swap(a, lt++, i++);
+                else if (cmp > 0) swap(a, i, gt--);
+                else i++;
+            }
+
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depth);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depth);
+                to = lt;
+            }
+        }
+        insertionSort(a, from, to);
+    }
+
+    private static int pivotIndex(Order[] a, int from, int to) {
+        int last = to - 1, middle = (from + last) >>> 1;
+        if (to - from < NINTHER_THRESHOLD) return medianOfThree(a, from, middle, last);
+        int step = (to - from) / 8;
+        return medianOfThree(a,
+                medianOfThree(a, from, from + step, from + 2 * step),
+                medianOfThree(a, middle - step, middle, middle + step),
+                medianOfThree(a, last - 2 * step, last - step, last));
+    }
+
+    private static int medianOfThree(Order[] a, int i, int j, int k) {
+        double x = a[i].getTotalPrice(), y = a[j].getTotalPrice(), z = a[k].getTotalPrice();
+        if (Double.compare(x, y) < 0) {
+            if (Double.compare(y, z) < 0) return j;
+            return Double.compare(x, z) < 0 ? k : i;
+        }
+        if (Double.compare(x, z) < 0) return i;
+        return Double.compare(y, z) < 0 ? k : j;
+    }
+
+    static void insertionSort(Order[] a, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            Order order = a[i];
+            double price = order.getTotalPrice();
+            int j = i - 1;
+            for (; j >= from && Double.compare(a[j].getTotalPrice(), price) > 0; j--) a[j + 1] = a[j];
+            a[j + 1] = order;
+        }
+    }
+
+    static void heapSort(Order[] a, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, from, i, n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, from, from + end);
+            siftDown(a, from, 0, end);
+        }
+    }
+
+    private static void siftDown(Order[] a, int base, int i, int n) {
+        Order order = a[base + i];
+        double price = order.getTotalPrice();
+        for (int child = 2 * i + 1; child < n; child = 2 * i + 1) {
+            if (child + 1 < n && Double.compare(a[base + child + 1].getTotalPrice(), a[base + child].getTotalPrice()) > 0) child++;
+            if (Double.compare(a[base + child].getTotalPrice(), price) <= 0) break;
+            a[base + i] = a[base + child];
+            i = child;
+        }
+        a[base + i] = order;
+    }
+
+    private static void swap(Order[] a, int i, int j) {
+        Order temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    static boolean isSorted(Order[] orders) {
+        for (int i = 1; i < orders.length; i++) {
+            if (Double.compare(orders[i - 1].getTotalPrice(), orders[i].getTotalPrice()) > 0) return false;
+        }
+        return true;
+    }
+}
+
+// Fork-join merge sort by total price. Ranges at or below the threshold are sorted sequentially
+// (introsort, or TimSort when stability is requested); above it both halves are sorted in parallel
+// and merged with a parallel merge, so no single O(n) step serializes the top of the tree. Sorted
+// halves ping-pong between the array and one scratch buffer instead of being copied back.
+class ParallelOrderSort {
+    static final int DEFAULT_THRESHOLD = 8192;
+
+    private static final Comparator<Order> BY_PRICE = Comparator.comparingDouble(Order::getTotalPrice);
+
+    public static void sort(Order[] orders) {
+        sort(orders, DEFAULT_THRESHOLD, false, ForkJoinPool.commonPool());
+    }
+
+    // Stable: orders with equal totals keep their relative order.
+    public static void sortStable(Order[] orders) {
+        sort(orders, DEFAULT_THRESHOLD, true, ForkJoinPool.commonPool());
+    }
+
+    public static void sort(Order[] orders, int threshold, boolean stable, ForkJoinPool pool) {
+        if (threshold < 1) throw new IllegalArgumentException("Threshold must be at least 1");
+        if (orders.length <= threshold) {
+            sequentialSort(orders, 0, orders.length, stable);
+            return;
+        }
+        pool.invoke(new SortTask(orders, new Order[orders.length], 0, orders.length, false, threshold, stable));
+    }
+
+    private static void sequentialSort(Order[] orders, int from, int to, boolean stable) {
+        if (stable) Arrays.sort(orders, from, to, BY_PRICE);
+        else OrderSort.sort(orders, from, to);
+    }
+
+    // Sorts [from, to) of a; the result ends up in b when intoBuffer, otherwise in a.
+    private static final class SortTask extends RecursiveAction {
+        private final Order[] a, b;
+        private final int from, to, threshold;
+        private final boolean intoBuffer, stable;
+
+        SortTask(Order[] a, Order[] b, int from, int to, boolean intoBuffer, int threshold, boolean stable) {
+            this.a = a;
+            this.b = b;
+            this.from = from;
+            this.to = to;
+            this.intoBuffer = intoBuffer;
+            this.threshold = threshold;
+            this.stable = stable;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                sequentialSort(a, from, to, stable);
+                if (intoBuffer) System.arraycopy(a, from, b, from, to - from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(a, b, from, middle, !intoBuffer, threshold, stable),
+                    new SortTask(a, b, middle, to, !intoBuffer, threshold, stable));
+            Order[] source = intoBuffer ? a : b, target = intoBuffer ? b : a;
+            new MergeTask(source, from, middle, source, middle, to, target, from, threshold).compute();
+        }
+    }
+
+    // Stable merge of left[leftFrom, leftTo) and right[rightFrom, rightTo) into target at targetFrom.
+    // Large merges split the longer run at its midpoint, binary-search the matching split in the
+    // other run, and merge the two halves in parallel.
+    private static final class MergeTask extends RecursiveAction {
+        private final Order[] left, right, target;
+        private final int leftFrom, leftTo, rightFrom, rightTo, targetFrom, threshold;
+
+        MergeTask(Order[] left, int leftFrom, int leftTo, Order[] right, int rightFrom, int rightTo,
+                  Order[] target, int targetFrom, int threshold) {
+            this.left = left;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.right = right;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int leftSize = leftTo - leftFrom, rightSize = rightTo - rightFrom;
+            // Two one-order runs can't be split further; splitting them would recurse on the same merge.
+            if (leftSize + rightSize <= Math.max(threshold, 2)) {
+                mergeSequential();
+                return;
+            }
+            int leftSplit, rightSplit;
+            if (leftSize >= rightSize) {
+                leftSplit = (leftFrom + leftTo) >>> 1;
+                // Right-hand orders equal to the split order must follow it.
+                rightSplit = lowerBound(right, rightFrom, rightTo, left[leftSplit].getTotalPrice(), false);
+            } else {
+                rightSplit = (rightFrom + rightTo) >>> 1;
+                // Left-hand orders equal to the split order must precede it.
+                leftSplit = lowerBound(left, leftFrom, leftTo, right[rightSplit].getTotalPrice(), true);
+            }
+            int targetSplit = targetFrom + (leftSplit - leftFrom) + (rightSplit - rightFrom);
+            invokeAll(new MergeTask(left, leftFrom, leftSplit, right, rightFrom, rightSplit, target, targetFrom, threshold),
+                    new MergeTask(left, leftSplit, leftTo, right, rightSplit, rightTo, target, targetSplit, threshold));
+        }
+
+        private void mergeSequential() {
+            int i = leftFrom, j = rightFrom, k = targetFrom;
+            while (i < leftTo && j < rightTo) {
+                target[k++] = Double.compare(right[j].getTotalPrice(), left[i].getTotalPrice()) < 0 ? right[j++] : left[i++];
+            }
+            System.arraycopy(left, i, target, k, leftTo - i);
+            System.arraycopy(right, j, target, k + leftTo - i, rightTo - j);
+        }
+
+        // First index whose price is > key (afterEqual) or >= key (!afterEqual).
+        private static int lowerBound(Order[] orders, int from, int to, double key, boolean afterEqual) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                int cmp = Double.compare(orders[mid].getTotalPrice(), key);
+                if (cmp < 0 || afterEqual && cmp == 0) from = mid + 1;
+                else to = mid;
+            }
+            return from;
+        }
+    }
+}
+
+// Key-extraction sort: each total is read once into a long whose unsigned order matches
+// Double.compare (sign bit flipped for positives, all bits flipped for negatives), the keys are
+// LSD radix sorted together with an index permutation, and the Order array is permuted once at
+// the end. No Order is dereferenced during the sort itself. Stable; digits whose value is the same
+// for every key (typically the high exponent bits of prices) are skipped.
+class OrderRadixSort {
+    private static final int DIGIT_BITS = 11;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int PASSES = (Long.SIZE + DIGIT_BITS - 1) / DIGIT_BITS;
+
+    public static void sort(Order[] orders) {
+        int n = orders.length;
+        if (n < 2) return;
+        long[] keys = new long[n];
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = sortableBits(orders[i].getTotalPrice());
+            index[i] = i;
+        }
+
+        int[][] counts = new int[PASSES][RADIX];
+        for (long key : keys) {
+            for (int pass = 0; pass < PASSES; pass++) counts[pass][(int) (key >>> pass * DIGIT_BITS) & RADIX - 1]++;
+        }
+
+        long[] keyBuffer = new long[n];
+        int[] indexBuffer = new int[n];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * DIGIT_BITS;
+            if (count[(int) (keys[0] >>> shift) & RADIX - 1] == n) continue;
+
+            for (int digit = 0, offset = 0; digit < RADIX; digit++) {
+                int c = count[digit];
+                count[digit] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = count[(int) (keys[i] >>> shift) & RADIX - 1]++;
+                keyBuffer[slot] = keys[i];
+                indexBuffer[slot] = index[i];
+            }
+            long[] k = keys;
+            keys = keyBuffer;
+            keyBuffer = k;
+            int[] x = index;
+            index = indexBuffer;
+            indexBuffer = x;
+        }
+
+        Order[] permuted = new Order[n];
+        for (int i = 0; i < n; i++) permuted[i] = orders[index[i]];
+        System.arraycopy(permuted, 0, orders, 0, n);
+    }
+
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ (bits >> 63 | Long.MIN_VALUE);
+    }
+}
+
+// Sorts an order file larger than the heap. Input and output are CSV lines of
+// "orderId,customerName,totalPrice" (the name may contain commas). Orders are read in chunks that
+// fit the memory limit, each chunk is radix sorted and spilled as a binary run (price, then id and
+// name as unsigned-short length + UTF-8), and the runs are k-way merged through a heap with one
+// buffered channel per run. With enough memory for every run's buffer the data is read and written
+// exactly twice; only when runs outnumber the fan-in are intermediate merge passes needed. Ties
+// keep input order.
+class ExternalOrderSort {
+    static final int IO_BUFFER = 1 << 20;
+    // Rough heap cost of one Order with short strings, plus radix sort scratch.
+    private static final int ORDER_OVERHEAD_BYTES = 160;
+
+    long orders;
+    int runs;
+    int mergePasses;
+
+    public static ExternalOrderSort sort(Path input, Path output, long memoryLimitBytes, Path tempDir) throws IOException {
+        if (memoryLimitBytes < 4L * IO_BUFFER) throw new IllegalArgumentException("Memory limit must be at least 4 MB");
+        ExternalOrderSort stats = new ExternalOrderSort();
+        int fanIn = (int) Math.min(1024, memoryLimitBytes / IO_BUFFER - 1);
+        Path workDir = Files.createTempDirectory(tempDir, "order-sort");
+        try {
+            List<Path> runs = stats.writeRuns(input, memoryLimitBytes, workDir);
+            stats.runs = runs.size();
+            while (runs.size() > fanIn) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                    Path run = workDir.resolve("pass" + stats.mergePasses + "-" + merged.size() + ".run");
+                    try (RunWriter out = new RunWriter(run)) {
+                        merge(group, out::write);
+                    }
+                    for (Path used : group) Files.delete(used);
+                    merged.add(run);
+                }
+                runs = merged;
+                stats.mergePasses++;
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                merge(runs, order -> {
+                    out.write(order.getOrderId() + "," + order.getCustomerName() + "," + order.getTotalPrice());
+                    out.newLine();
+                });
+            }
+            stats.mergePasses++;
+            for (Path run : runs) Files.delete(run);
+        } finally {
+            try (var leftovers = Files.list(workDir)) {
+                for (Path file : (Iterable<Path>) leftovers::iterator) Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(workDir);
+        }
+        return stats;
+    }
+
+    static Order parse(String line, long lineNumber) throws IOException {
+        int first = line.indexOf(','), last = line.lastIndexOf(',');
+        if (first < 0 || first == last) throw new IOException("Line " + lineNumber + ": expected orderId,customerName,totalPrice");
+        try {
+            return new Order(line.substring(0, first), line.substring(first + 1, last), Double.parseDouble(line.substring(last + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Line " + lineNumber + ": invalid total price", e);
+        }
+    }
+
+    private List<Path> writeRuns(Path input, long memoryLimitBytes, Path workDir) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Order> chunk = new ArrayList<>();
+        long chunkBytes = 0, lineNumber = 0;
+        long budget = memoryLimitBytes - 2L * IO_BUFFER;
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                Order order = parse(line, lineNumber);
+                chunk.add(order);
+                chunkBytes += ORDER_OVERHEAD_BYTES + 2L * line.length();
+                if (chunkBytes >= budget) {
+                    runs.add(spill(chunk, workDir, runs.size()));
+                    chunk = new ArrayList<>();
+                    chunkBytes = 0;
+                }
+            }
+        }
+        if (!chunk.isEmpty() || runs.isEmpty()) runs.add(spill(chunk, workDir, runs.size()));
+        return runs;
+    }
+
+    private Path spill(List<Order> chunk, Path workDir, int number) throws IOException {
+        Order[] sorted = chunk.toArray(new Order[0]);
+        OrderRadixSort.sort(sorted);
+        Path run = workDir.resolve("run-" + number + ".run");
+        try (RunWriter out = new RunWriter(run)) {
+            for (Order order : sorted) out.write(order);
+        }
+        orders += sorted.length;
+        return run;
+    }
+
+    interface OrderSink {
+        void accept(Order order) throws IOException;
+    }
+
+    // Heap of run heads ordered by price, then run number, so equal totals keep input order.
+    private static void merge(List<Path> runs, OrderSink sink) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> {
+                int cmp = Double.compare(a.head.getTotalPrice(), b.head.getTotalPrice());
+                return cmp != 0 ? cmp : Integer.compare(a.number, b.number);
+            });
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run, readers.size());
+                readers.add(reader);
+                if (reader.advance()) heap.add(reader);
+            }
+            while (!heap.isEmpty()) {
+                RunReader reader = heap.poll();
+                sink.accept(reader.head);
+                if (reader.advance()) heap.add(reader);
+            }
+        } finally {
+            for (RunReader reader : readers) reader.close();
+        }
+    }
+
+    private static final class RunWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+
+        RunWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        void write(Order order) throws IOException {
+            byte[] id = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+            byte[] name = order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+            if (id.length > 0xFFFF || name.length > 0xFFFF) throw new IOException("Order id or customer name too long");
+            if (buffer.remaining() < Double.BYTES + 4 + id.length + name.length) flush();
+            buffer.putDouble(order.getTotalPrice());
+            buffer.putShort((short) id.length).put(id);
+            buffer.putShort((short) name.length).put(name);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class RunReader implements AutoCloseable {
+        final int number;
+        Order head;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        private final byte[] scratch = new byte[0xFFFF];
+
+        RunReader(Path file, int number) throws IOException {
+            this.number = number;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        boolean advance() throws IOException {
+            if (!ensure(Double.BYTES)) return false;
+            double price = buffer.getDouble();
+            String id = readString();
+            String name = readString();
+            head = new Order(id, name, price);
+            return true;
+        }
+
+        private String readString() throws IOException {
+            if (!ensure(2)) throw new IOException("Truncated run file");
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (!ensure(length)) throw new IOException("Truncated run file");
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private boolean ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return true;
+            buffer.compact();
+            while (buffer.position() < bytes && channel.read(buffer) > 0) { }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
+
+// Keeps the k largest (or smallest) orders seen so far in an array heap whose root is the weakest
+// of them, so most offers are rejected with one price comparison. Equal totals keep the earlier order.
+class BoundedOrderHeap {
+    private final Order[] heap;
+    private final boolean largest;
+    private int size;
+
+    BoundedOrderHeap(int k, boolean largest) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative");
+        this.heap = new Order[k];
+        this.largest = largest;
+    }
+
+    public void offer(Order order) {
+        if (size < heap.length) {
+            heap[size] = order;
+            siftUp(size++);
+        } else if (size > 0 && weaker(heap[0], order)) {
+            heap[0] = order;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Best first: descending totals for a top-k heap, ascending for a bottom-k one.
+    public Order[] toSortedArray() {
+        Order[] sorted = Arrays.copyOf(heap, size);
+        OrderSort.sort(sorted);
+        if (largest) {
+            for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+                Order temp = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = temp;
+            }
+        }
+        return sorted;
+    }
+
+    private boolean weaker(Order a, Order b) {
+        int cmp = Double.compare(a.getTotalPrice(), b.getTotalPrice());
+        return largest ? cmp < 0 : cmp > 0;
+    }
+
+    private void siftUp(int i) {
+        Order order = heap[i];
+        while (i > 0 && weaker(order, heap[(i - 1) / 2])) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = order;
+    }
+
+    private void siftDown(int i) {
+        Order order = heap[i];
+        for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+            if (child + 1 < size && weaker(heap[child + 1], heap[child])) child++;
+            if (!weaker(heap[child], order)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = order;
+    }
+}
+
+// Running top-k / bottom-k over an unbounded order feed; safe to offer from several threads.
+class OrderTopKCollector {
+    private final BoundedOrderHeap heap;
+
+    OrderTopKCollector(int k, boolean largest) {
+        heap = new BoundedOrderHeap(k, largest);
+    }
+
+    public synchronized void offer(Order order) {
+        heap.offer(order);
+    }
+
+    public synchronized Order[] snapshot() {
+        return heap.toSortedArray();
+    }
+}
+
+// Partial-order queries by total price: top-k and bottom-k in O(n log k) with a bounded heap, and
+// the k-th smallest total in expected O(n) with quickselect.
+class OrderSelection {
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    public static Order[] topK(Order[] orders, int k) {
+        return best(orders, 0, orders.length, k, true);
+    }
+
+    public static Order[] bottomK(Order[] orders, int k) {
+        return best(orders, 0, orders.length, k, false);
+    }
+
+    // Splits the array across the common pool; each part keeps its own k best, then those are combined.
+    public static Order[] topKParallel(Order[] orders, int k) {
+        return ForkJoinPool.commonPool().invoke(new BestTask(orders, 0, orders.length, k, true));
+    }
+
+    public static Order[] bottomKParallel(Order[] orders, int k) {
+        return ForkJoinPool.commonPool().invoke(new BestTask(orders, 0, orders.length, k, false));
+    }
+
+    // Order with the k-th smallest total (0-based). Reorders the array like C++ nth_element: afterwards
+    // orders[k] holds that order, nothing before it is larger and nothing after it is smaller.
+    public static Order select(Order[] orders, int k) {
+        if (k < 0 || k >= orders.length) throw new IllegalArgumentException("k out of range: " + k);
+        int from = 0, to = orders.length;
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(orders.length));
+        while (to - from > OrderSort.INSERTION_CUTOFF) {
+            if (budget-- == 0) {
+                // Too many bad pivots: finish with a guaranteed O(n log n) sort of what is left.
+                OrderSort.sort(orders, from, to);
+                return orders[k];
+            }
+            double pivot = medianOfThree(orders, from, (from + to) >>> 1, to - 1);
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                int cmp = Double.compare(orders[i].getTotalPrice(), pivot);
+                if (cmp < 0) swap(orders, lt++, i++);
+                else if (cmp > 0) swap(orders, i, gt--);
+                else i++;
+            }
+            if (k < lt) to = lt;
+            else if (k > gt) from = gt + 1;
+            else return orders[k];
+        }
+        OrderSort.insertionSort(orders, from, to);
+        return orders[k];
+    }
+
+    private static Order[] best(Order[] orders, int from, int to, int k, boolean largest) {
+        BoundedOrderHeap heap = new BoundedOrderHeap(k, largest);
+        for (int i = from; i < to; i++) heap.offer(orders[i]);
+        return heap.toSortedArray();
+    }
+
+    private static double medianOfThree(Order[] a, int i, int j, int k) {
+        double x = a[i].getTotalPrice(), y = a[j].getTotalPrice(), z = a[k].getTotalPrice();
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    private static void swap(Order[] a, int i, int j) {
+        Order temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    private static final class BestTask extends RecursiveTask<Order[]> {
+        private final Order[] orders;
+        private final int from, to, k;
+        private final boolean largest;
+
+        BestTask(Order[] orders, int from, int to, int k, boolean largest) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.largest = largest;
+        }
+
+        @Override
+        protected Order[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) return best(orders, from, to, k, largest);
+            int middle = (from + to) >>> 1;
+            BestTask right = new BestTask(orders, middle, to, k, largest);
+            right.fork();
+            Order[] left = new BestTask(orders, from, middle, k, largest).compute();
+            Order[] both = Arrays.copyOf(left, left.length + k);
+            Order[] rightBest = right.join();
+            System.arraycopy(rightBest, 0, both, left.length, rightBest.length);
+            return best(both, 0, left.length + rightBest.length, k, largest);
+        }
+    }
+}
+
+// Live order book sorted by total price, ties broken by order id. An indexable skip list: every
+// forward link also records how many positions it jumps, so insert, cancel, rank and "order at
+// position i" are all expected O(log n). Readers share a read lock and run concurrently; inserts
+// and cancels take the write lock. A sorted snapshot is a walk of the bottom level, no sort needed.
+class OrderBook {
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node {
+        final Order order;
+        final Node[] next;
+        final int[] width;
+
+        Node(Order order, int levels) {
+            this.order = order;
+            this.next = new Node[levels];
+            this.width = new int[levels];
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node head = new Node(null, MAX_LEVEL);
+    private final Map<String, Order> byId = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private int level = 1;
+    private int size;
+
+    public OrderBook() {
+        head.width[0] = 1;
+    }
+
+    // False if an order with the same id is already in the book.
+    public boolean add(Order order) {
+        lock.writeLock().lock();
+        try {
+            if (byId.putIfAbsent(order.getOrderId(), order) != null) return false;
+            Node[] update = new Node[MAX_LEVEL];
+            int[] rankAt = new int[MAX_LEVEL];
+            Node x = head;
+            int position = 0;
+            for (int l = level - 1; l >= 0; l--) {
+                while (x.next[l] != null && compare(x.next[l].order, order) < 0) {
+                    position += x.width[l];
+                    x = x.next[l];
+                }
+                update[l] = x;
+                rankAt[l] = position;
+            }
+
+            int levels = randomLevel();
+            for (int l = level; l < levels; l++) {
+                update[l] = head;
+                rankAt[l] = 0;
+                head.width[l] = size + 1;
+            }
+            level = Math.max(level, levels);
+
+            Node node = new Node(order, levels);
+            for (int l = 0; l < levels; l++) {
+                node.next[l] = update[l].next[l];
+                node.width[l] = update[l].width[l] - (position - rankAt[l]);
+                update[l].next[l] = node;
+                update[l].width[l] = position - rankAt[l] + 1;
+            }
+            for (int l = levels; l < level; l++) update[l].width[l]++;
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removes and returns the order with this id, or null if it is not in the book.
+    public Order cancel(String orderId) {
+        lock.writeLock().lock();
+        try {
+            Order order = byId.remove(orderId);
+            if (order == null) return null;
+            Node[] update = new Node[MAX_LEVEL];
+            Node x = head;
+            for (int l = level - 1; l >= 0; l--) {
+                while (x.next[l] != null && compare(x.next[l].order, order) < 0) x = x.next[l];
+                update[l] = x;
+            }
+            Node target = update[0].next[0];
+            for (int l = 0; l < level; l++) {
+                if (update[l].next[l] == target) {
+                    update[l].width[l] += target.width[l] - 1;
+                    update[l].next[l] = target.next[l];
+                } else {
+                    update[l].width[l]--;
+                }
+            }
+            while (level > 1 && head.next[level - 1] == null) level--;
+            size--;
+            return order;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 0-based position of the order in price order, or -1 if it is not in the book.
+    public int rank(String orderId) {
+        lock.readLock().lock();
+        try {
+            Order order = byId.get(orderId);
+            if (order == null) return -1;
+            Node x = head;
+            int position = 0;
+            for (int l = level - 1; l >= 0; l--) {
+                while (x.next[l] != null && compare(x.next[l].order, order) < 0) {
+                    position += x.width[l];
+                    x = x.next[l];
+                }
+            }
+            return position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of orders with a total strictly below price.
+    public int countBelow(double price) {
+        lock.readLock().lock();
+        try {
+            Node x = head;
+            int position = 0;
+            for (int l = level - 1; l >= 0; l--) {
+                while (x.next[l] != null && Double.compare(x.next[l].order.getTotalPrice(), price) < 0) {
+                    position += x.width[l];
+                    x = x.next[l];
+                }
+            }
+            return position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Order at 0-based position in price order.
+    public Order get(int index) {
+        lock.readLock().lock();
+        try {
+            return orderAt(Objects.checkIndex(index, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Like get, but null when index is past the end; the size check and the lookup share one read lock,
+    // so callers racing a writer can't see the book shrink in between.
+    public Order getOrNull(int index) {
+        lock.readLock().lock();
+        try {
+            return index >= 0 && index < size ? orderAt(index) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Order orderAt(int index) {
+        Node x = head;
+        int position = 0, target = index + 1;
+        for (int l = level - 1; l >= 0; l--) {
+            while (x.next[l] != null && position + x.width[l] <= target) {
+                position += x.width[l];
+                x = x.next[l];
+            }
+        }
+        return x.order;
+    }
+
+    // Visits orders with fromInclusive <= total < toExclusive in price order, under the read lock.
+    public void forEachInRange(double fromInclusive, double toExclusive, Consumer<Order> action) {
+        lock.readLock().lock();
+        try {
+            Node x = head;
+            for (int l = level - 1; l >= 0; l--) {
+                while (x.next[l] != null && Double.compare(x.next[l].order.getTotalPrice(), fromInclusive) < 0) x = x.next[l];
+            }
+            for (x = x.next[0]; x != null && Double.compare(x.order.getTotalPrice(), toExclusive) < 0; x = x.next[0]) {
+                action.accept(x.order);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Order> range(double fromInclusive, double toExclusive) {
+        List<Order> orders = new ArrayList<>();
+        forEachInRange(fromInclusive, toExclusive, orders::add);
+        return orders;
+    }
+
+    public Order[] snapshot() {
+        lock.readLock().lock();
+        try {
+            Order[] orders = new Order[size];
+            int i = 0;
+            for (Node x = head.next[0]; x != null; x = x.next[0]) orders[i++] = x.order;
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int randomLevel() {
+        long bits = random.nextLong();
+        return Math.min(MAX_LEVEL, 1 + Long.numberOfTrailingZeros(bits | 1L << (MAX_LEVEL - 1)));
+    }
+
+    private static int compare(Order a, Order b) {
+        int cmp = Double.compare(a.getTotalPrice(), b.getTotalPrice());
+        return cmp != 0 ? cmp : a.getOrderId().compareTo(b.getOrderId());
+    }
+}
+
+class OrderSortBenchmark {
+    private static final int CLASSIC_QUICKSORT_LIMIT = 20_000;
+
+    static Order[] randomOrders(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            orders[i] = new Order("O" + i, "C" + random.nextInt(100_000), Math.round(random.nextDouble() * 100_000) / 100.0);
+        }
+        return orders;
+    }
+
+    static Map<String, Order[]> inputs(int count) {
+        Map<String, Order[]> inputs = new LinkedHashMap<>();
+        Order[] random = randomOrders(count, 42);
+        Order[] sorted = random.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(Order::getTotalPrice));
+        Order[] reversed = new Order[count];
+        for (int i = 0; i < count; i++) reversed[i] = sorted[count - 1 - i];
+        Order[] equal = new Order[count];
+        for (int i = 0; i < count; i++) equal[i] = new Order("O" + i, "C", 49.99);
+        Order[] fewTotals = new Order[count];
+        for (int i = 0; i < count; i++) fewTotals[i] = new Order("O" + i, "C", random[i].getTotalPrice() % 10 < 5 ? 9.99 : 19.99);
+
+        inputs.put("random", random);
+        inputs.put("sorted", sorted);
+        inputs.put("reversed", reversed);
+        inputs.put("all equal", equal);
+        inputs.put("two totals", fewTotals);
+        return inputs;
+    }
+
+    public static void run(int count) {
+        System.out.printf("=== Order sort benchmark: %,d orders ===%n", count);
+        for (Map.Entry<String, Order[]> input : inputs(count).entrySet()) {
+            Order[] source = input.getValue();
+            measure(input.getKey(), "OrderSort.sort", source, OrderSort::sort);
+            measure(input.getKey(), "Arrays.sort (TimSort)", source,
+                    orders -> Arrays.sort(orders, Comparator.comparingDouble(Order::getTotalPrice)));
+            Order[] small = Arrays.copyOf(source, Math.min(source.length, CLASSIC_QUICKSORT_LIMIT));
+            measure(input.getKey(), "classic quickSort", small,
+                    orders -> CustomerOrderSorter.classicQuickSort(orders, 0, orders.length - 1));
+        }
+        runParallel(count);
+        runRadix(count);
+        runExternal(count);
+        runSelection(count);
+        runOrderBook(count);
+    }
+
+    private static void runOrderBook(int count) {
+        Order[] source = randomOrders(count, 23);
+        System.out.printf("--- Order book with %,d live orders ---%n", count);
+        OrderBook book = new OrderBook();
+        long start = System.nanoTime();
+        for (Order order : source) book.add(order);
+        report("OrderBook insert", count, System.nanoTime() - start);
+
+        SplittableRandom random = new SplittableRandom(29);
+        int queries = 100_000;
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) checksum += book.rank(source[random.nextInt(count)].getOrderId());
+        report("OrderBook rank", queries, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) checksum += (long) book.get(random.nextInt(count)).getTotalPrice();
+        report("OrderBook get(i)", queries, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            double from = random.nextDouble() * 1_000;
+            checksum += book.range(from, from + 0.05).size();
+        }
+        report("OrderBook range (5 cents)", queries, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        Order[] snapshot = book.snapshot();
+        long snapshotNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Order[] resorted = source.clone();
+        OrderSort.sort(resorted);
+        long resortNanos = System.nanoTime() - start;
+        System.out.printf("Sorted view: snapshot %.2f ms vs re-sort %.2f ms, snapshot sorted: %s%n",
+                snapshotNanos / 1e6, resortNanos / 1e6, OrderSort.isSorted(snapshot));
+
+        // Readers and a writer at the same time: the writer cancels and re-adds, readers ask for ranks.
+        int readers = 4, readsPerThread = 50_000;
+        Thread[] threads = new Thread[readers + 1];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        threads[0] = new Thread(() -> {
+            SplittableRandom writerRandom = new SplittableRandom(31);
+            for (int i = 0; i < readsPerThread; i++) {
+                Order order = source[writerRandom.nextInt(count)];
+                if (book.cancel(order.getOrderId()) != null) book.add(order);
+            }
+        });
+        for (int t = 1; t <= readers; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom readerRandom = new SplittableRandom(seed);
+                for (int i = 0; i < readsPerThread; i++) book.getOrNull(readerRandom.nextInt(count));
+            });
+        }
+        start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure.get() != null) throw new IllegalStateException("Order book churn failed", failure.get());
+        report("Mixed 4 readers+1 writer", (readers + 1) * readsPerThread, System.nanoTime() - start);
+        System.out.println("Order book size after churn: " + book.size() + " (checksum " + checksum + ")");
+    }
+
+    static void report(String label, int ops, long nanos) {
+        System.out.printf("%-26s %,10d ops in %8.2f ms (%,.0f ns/op)%n", label, ops, nanos / 1e6, (double) nanos / ops);
+    }
+
+    private static void runSelection(int count) {
+        Order[] source = randomOrders(count, 17);
+        int k = 100;
+        System.out.printf("--- Top %d of %,d orders ---%n", k, count);
+        long start = System.nanoTime();
+        Order[] sorted = source.clone();
+        OrderSort.sort(sorted);
+        long sortNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Order[] top = OrderSelection.topK(source, k);
+        long heapNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Order[] parallelTop = OrderSelection.topKParallel(source, k);
+        long parallelNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Order[] bottom = OrderSelection.bottomK(source, k);
+        long bottomNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Order median = OrderSelection.select(source.clone(), count / 2);
+        long selectNanos = System.nanoTime() - start;
+
+        OrderTopKCollector stream = new OrderTopKCollector(k, true);
+        start = System.nanoTime();
+        for (Order order : source) stream.offer(order);
+        long streamNanos = System.nanoTime() - start;
+
+        Order[] streamed = stream.snapshot();
+        boolean agrees = median.getTotalPrice() == sorted[count / 2].getTotalPrice();
+        for (int i = 0; i < Math.min(k, count); i++) {
+            double expected = sorted[count - 1 - i].getTotalPrice();
+            agrees &= top[i].getTotalPrice() == expected && parallelTop[i].getTotalPrice() == expected
+                    && streamed[i].getTotalPrice() == expected && bottom[i].getTotalPrice() == sorted[i].getTotalPrice();
+        }
+        System.out.printf("Full sort %.2f ms | topK heap %.2f ms | topK parallel %.2f ms | bottomK %.2f ms | streaming %.2f ms | select median %.2f ms | match full sort: %s%n",
+                sortNanos / 1e6, heapNanos / 1e6, parallelNanos / 1e6, bottomNanos / 1e6, streamNanos / 1e6, selectNanos / 1e6, agrees);
+    }
+
+    private static void runExternal(int count) {
+        try {
+            Path input = Files.createTempFile("orders", ".csv");
+            Path output = Files.createTempFile("orders-sorted", ".csv");
+            SplittableRandom random = new SplittableRandom(5);
+            try (BufferedWriter out = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < count; i++) {
+                    out.write("O" + i + ",Customer " + random.nextInt(100_000) + "," + Math.round(random.nextDouble() * 100_000) / 100.0);
+                    out.newLine();
+                }
+            }
+            System.out.printf("--- External sort of a %,d-byte CSV ---%n", Files.size(input));
+            for (long memory : new long[] {16L << 20, 64L << 20}) {
+                long start = System.nanoTime();
+                ExternalOrderSort stats = ExternalOrderSort.sort(input, output, memory, input.getParent());
+                long nanos = System.nanoTime() - start;
+                System.out.printf("%3d MB limit: %,d orders, %d runs, %d merge pass(es), %.2f s (%,.0f orders/s), output sorted: %s%n",
+                        memory >> 20, stats.orders, stats.runs, stats.mergePasses, nanos / 1e9, stats.orders * 1e9 / nanos, isSorted(output));
+            }
+            Files.delete(input);
+            Files.delete(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isSorted(Path file) throws IOException {
+        double previous = Double.NEGATIVE_INFINITY;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                double price = Double.parseDouble(line.substring(line.lastIndexOf(',') + 1));
+                if (price < previous) return false;
+                previous = price;
+            }
+        }
+        return true;
+    }
+
+    private static void runRadix(int count) {
+        Order[] source = randomOrders(count, 11);
+        System.out.println("--- Key-extraction radix sort ---");
+        measure("random", "OrderSort.sort", source, OrderSort::sort);
+        measure("random", "Arrays.sort (TimSort)", source, orders -> Arrays.sort(orders, Comparator.comparingDouble(Order::getTotalPrice)));
+        measure("random", "OrderRadixSort", source, OrderRadixSort::sort);
+
+        // Shuffled creation order, as after the objects have lived in the heap a while.
+        Order[] shuffled = source.clone();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Order temp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = temp;
+        }
+        measure("scattered", "OrderSort.sort", shuffled, OrderSort::sort);
+        measure("scattered", "OrderRadixSort", shuffled, OrderRadixSort::sort);
+    }
+
+    private static void runParallel(int count) {
+        Order[] source = randomOrders(count, 7);
+        System.out.printf("--- Parallel sort, %d worker(s) in the common pool ---%n", ForkJoinPool.getCommonPoolParallelism());
+        measure("random", "Arrays.sort", source, orders -> Arrays.sort(orders, Comparator.comparingDouble(Order::getTotalPrice)));
+        measure("random", "Arrays.parallelSort", source,
+                orders -> Arrays.parallelSort(orders, Comparator.comparingDouble(Order::getTotalPrice)));
+        measure("random", "ParallelOrderSort", source, ParallelOrderSort::sort);
+        measure("random", "ParallelOrderSort stable", source, ParallelOrderSort::sortStable);
+
+        // Thread scaling with dedicated pools.
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= Math.max(16, cores); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            measure("random", "ParallelOrderSort x" + threads, source,
+                    orders -> ParallelOrderSort.sort(orders, ParallelOrderSort.DEFAULT_THRESHOLD, false, pool));
+            pool.shutdown();
+        }
+
+        Order[] stable = source.clone();
+        ParallelOrderSort.sort(stable, 1024, true, ForkJoinPool.commonPool());
+        for (int i = 1; i < stable.length; i++) {
+            if (stable[i - 1].getTotalPrice() == stable[i].getTotalPrice()
+                    && sequence(stable[i - 1]) > sequence(stable[i])) {
+                throw new IllegalStateException("Stable parallel sort reordered equal totals");
+            }
+        }
+        System.out.println("Stable parallel sort kept equal totals in input order: true");
+
+        // The smallest threshold splits down to one-order runs and merges them pairwise.
+        for (boolean stableMerge : new boolean[]{false, true}) {
+            Order[] tiny = randomOrders(1_000, 41);
+            ParallelOrderSort.sort(tiny, 1, stableMerge, ForkJoinPool.commonPool());
+            if (!OrderSort.isSorted(tiny)) throw new IllegalStateException("Threshold 1 left orders unsorted");
+        }
+        System.out.println("Parallel sort with threshold 1 sorted: true");
+    }
+
+    private static int sequence(Order order) {
+        return Integer.parseInt(order.getOrderId().substring(1));
+    }
+
+    interface OrderSorter {
+        void sort(Order[] orders);
+    }
+
+    // Best of three runs on fresh copies.
+    static void measure(String input, String label, Order[] source, OrderSorter sorter) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            Order[] orders = source.clone();
+            long start = System.nanoTime();
+            try {
+                sorter.sort(orders);
+            } catch (StackOverflowError e) {
+                System.out.printf("%-11s %-26s %,11d orders: stack overflow%n", input, label, source.length);
+                return;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            if (!OrderSort.isSorted(orders)) throw new IllegalStateException(label + " left " + input + " input unsorted");
+        }
+        System.out.printf("%-11s %-26s %,11d orders: %9.2f ms%n", input, label, source.length, best / 1e6);
+    }
+}
+
 public class CustomerOrderSorter {
 
 
@@ -40,10 +1280,16 @@ public class CustomerOrderSorter {
     }
 
     public static void quickSort(Order[] orders, int low, int high) {
+        if (low < high) OrderSort.sort(orders, low, high + 1);
+    }
+
+    // The original Lomuto quicksort, kept as a benchmark baseline: quadratic (and stack-hungry)
+    // on sorted or all-equal input.
+    static void classicQuickSort(Order[] orders, int low, int high) {
         if (low < high) {
             int pi = partition(orders, low, high);
-            quickSort(orders, low, pi - 1);
-            quickSort(orders, pi + 1, high);
+            classicQuickSort(orders, low, pi - 1);
+            classicQuickSort(orders, pi + 1, high);
         }
     }
 
@@ -73,7 +1319,19 @@ public class CustomerOrderSorter {
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--benchmark")) {
+            OrderSortBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+            return;
+        }
+        if (args.length > 2 && args[0].equals("--external-sort")) {
+            long memory = (args.length > 3 ? Long.parseLong(args[3]) : 256) << 20;
+            Path output = Path.of(args[2]).toAbsolutePath();
+            ExternalOrderSort stats = ExternalOrderSort.sort(Path.of(args[1]), output, memory, output.getParent());
+            System.out.printf("Sorted %,d orders via %d run(s) and %d merge pass(es)%n", stats.orders, stats.runs, stats.mergePasses);
+            return;
+        }
+
         Order[] sampleOrders = {
                 new Order("A101", "Alice", 275.50),
                 new Order("A102", "Bob", 120.00),
@@ -100,7 +1358,7 @@ public class CustomerOrderSorter {
 
         System.out.println("\n📊 Performance Analysis:");
         System.out.println("- Bubble Sort: O(n²) — inefficient for large datasets.");
-        System.out.println("- Quick Sort : O(n log n) average — faster and widely used in real-world applications.");
+        System.out.println("- Quick Sort : O(n log n) introsort — three-way partitioning, heapsort fallback for bad pivots.");
         System.out.println("- Quick Sort is preferred for its divide-and-conquer approach and better scalability.");
     }
 }